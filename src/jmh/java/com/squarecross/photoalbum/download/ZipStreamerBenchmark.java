@@ -0,0 +1,100 @@
+package com.squarecross.photoalbum.download;
+
+import com.squarecross.photoalbum.dto.PhotoDto;
+import com.squarecross.photoalbum.metrics.PhotoMetrics;
+import com.squarecross.photoalbum.storage.LocalStorageBackend;
+import com.squarecross.photoalbum.storage.ParallelDeleter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 장 다운로드(PhotoController.downloadPhotos)의 ZIP 스트리밍 경로.
+ * jpg는 STORED(미리 읽기로 CRC 계산), txt는 DEFLATED로 들어가므로 두 경우를 나눠 잰다.
+ * 응답 대신 버리는 스트림에 쓰므로 네트워크 비용은 들어가지 않는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZipStreamerBenchmark {
+
+    @Param({"10", "100"})
+    private int count;
+
+    @Param({"256", "4096"})
+    private int fileSizeKb;
+
+    @Param({"jpg", "txt"})
+    private String ext;
+
+    @Param({"0", "2"})
+    private int readAhead;
+
+    private Path root;
+    private ParallelDeleter parallelDeleter;
+    private ExecutorService prefetchExecutor;
+    private ZipStreamer zipStreamer;
+    private List<PhotoDto> photos;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("zip-bench-");
+        parallelDeleter = new ParallelDeleter(2);
+        LocalStorageBackend storage = new LocalStorageBackend(root.toString(), parallelDeleter);
+        storage.init();
+
+        Random random = new Random(42);
+        byte[] content = new byte[fileSizeKb * 1024];
+        photos = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            random.nextBytes(content);
+            String key = "/photos/original/1/photo-" + i + "." + ext;
+            storage.write(key, new ByteArrayInputStream(content));
+
+            PhotoDto photo = new PhotoDto();
+            photo.setPhotoId(i);
+            photo.setFileName("photo-" + i + "." + ext);
+            photo.setOriginalUrl(key);
+            photos.add(photo);
+        }
+
+        prefetchExecutor = Executors.newFixedThreadPool(4);
+        zipStreamer = new ZipStreamer();
+        ReflectionTestUtils.setField(zipStreamer, "storage", storage);
+        ReflectionTestUtils.setField(zipStreamer, "photoMetrics", new PhotoMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(zipStreamer, "zipPrefetchExecutor", prefetchExecutor);
+        ReflectionTestUtils.setField(zipStreamer, "readAhead", readAhead);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        prefetchExecutor.shutdownNow();
+        parallelDeleter.deleteTree(root);
+        parallelDeleter.shutdown();
+    }
+
+    @Benchmark
+    public void zip() throws IOException {
+        zipStreamer.write(photos, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,89 @@
+package com.squarecross.photoalbum.image;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * 벤치마크용 이미지. 실제 업로드와 비슷하게 두 종류를 만든다.
+ * - screenshot: 단색 면과 글자가 대부분인 화면 캡처 (PNG로 올라오는 경우가 많다)
+ * - photo: 그라데이션에 잡음을 섞은 사진 (JPEG)
+ */
+final class SampleImages {
+
+    private SampleImages() {
+    }
+
+    static BufferedImage create(String kind, int width, int height) {
+        switch (kind) {
+            case "screenshot":
+                return screenshot(width, height);
+            case "photo":
+                return photo(width, height);
+            default:
+                throw new IllegalArgumentException("알 수 없는 이미지 종류: " + kind);
+        }
+    }
+
+    /**
+     * "png-screenshot-1920x1080" 같은 파라미터를 {형식, 종류, 가로, 세로}로 나눈다.
+     */
+    static String[] parse(String source) {
+        String[] parts = source.split("-");
+        String[] size = parts[2].split("x");
+        return new String[]{parts[0], parts[1], size[0], size[1]};
+    }
+
+    private static BufferedImage screenshot(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(new Color(0x2d, 0x33, 0x3b));
+            g.fillRect(0, 0, width, height / 20);
+            g.setColor(new Color(0xf0, 0xf2, 0xf5));
+            g.fillRect(0, height / 20, width / 6, height);
+            g.setColor(Color.DARK_GRAY);
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(10, height / 60)));
+            int lineHeight = Math.max(12, height / 45);
+            for (int y = height / 10; y < height; y += lineHeight) {
+                g.drawString("PhotoAlbum benchmark line " + y, width / 5, y);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static BufferedImage photo(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, new Color(0x3a, 0x6e, 0xa5), width, height, new Color(0xe8, 0xa8, 0x3e)));
+            g.fillRect(0, 0, width, height);
+        } finally {
+            g.dispose();
+        }
+        // 압축이 잘 되지 않도록 잡음을 섞는다. 시드를 고정해 실행마다 같은 이미지를 만든다.
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                int noise = random.nextInt(32) - 16;
+                int r = clamp(((rgb >> 16) & 0xff) + noise);
+                int gr = clamp(((rgb >> 8) & 0xff) + noise);
+                int b = clamp((rgb & 0xff) + noise);
+                image.setRGB(x, y, (r << 16) | (gr << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
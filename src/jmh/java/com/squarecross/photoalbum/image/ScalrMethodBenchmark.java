@@ -0,0 +1,45 @@
+package com.squarecross.photoalbum.image;
+
+import com.squarecross.photoalbum.Constants;
+import org.imgscalr.Scalr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalr.Method별 리사이즈 비용. 디코딩이 끝난 이미지(서브샘플링 후 목표의 2배 안팎)를 THUMB_SIZE로 줄인다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScalrMethodBenchmark {
+
+    @Param({"SPEED", "BALANCED", "QUALITY", "ULTRA_QUALITY"})
+    private Scalr.Method method;
+
+    @Param({"screenshot-1920x1080", "photo-800x600", "photo-4000x3000"})
+    private String source;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() {
+        String[] spec = SampleImages.parse("none-" + source);
+        image = SampleImages.create(spec[1], Integer.parseInt(spec[2]), Integer.parseInt(spec[3]));
+    }
+
+    @Benchmark
+    public BufferedImage resize() {
+        BufferedImage resized = Scalr.resize(image, method, Constants.THUMB_SIZE, Constants.THUMB_SIZE);
+        resized.flush();
+        return resized;
+    }
+}
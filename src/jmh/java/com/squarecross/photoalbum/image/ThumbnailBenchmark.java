@@ -0,0 +1,83 @@
+package com.squarecross.photoalbum.image;
+
+import com.squarecross.photoalbum.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 업로드 후 썸네일 생성(ThumbnailService.render)과 같은 경로를 잰다:
+ * 서브샘플링 디코딩 → ThumbnailRenderer.resize → ThumbnailEncoder.encode(내용을 보고 JPEG/PNG 선택).
+ * 저장소와 DB 갱신은 빼고 이미지 처리만 측정한다. 렌더러는 적체에 따라 바뀌므로 두 단계를 모두 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThumbnailBenchmark {
+
+    @Param({"png-screenshot-1920x1080", "png-screenshot-2880x1800", "jpg-photo-1600x1200", "jpg-photo-4000x3000"})
+    private String source;
+
+    @Param({"FAST", "QUALITY"})
+    private RenderTier tier;
+
+    private ThumbnailDecoder decoder;
+    private ThumbnailRenderer renderer;
+    private ThumbnailEncoder encoder;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] spec = SampleImages.parse(source);
+        BufferedImage image = SampleImages.create(spec[1], Integer.parseInt(spec[2]), Integer.parseInt(spec[3]));
+        file = Files.createTempFile("thumbnail-bench-", "." + spec[0]);
+        ImageIO.write(image, spec[0], file.toFile());
+
+        decoder = new ThumbnailDecoder();
+        ReflectionTestUtils.setField(decoder, "decodeBudget", new DecodeBudget(Long.MAX_VALUE));
+        renderer = tier == RenderTier.FAST ? new FastThumbnailRenderer() : new QualityThumbnailRenderer();
+        encoder = new ThumbnailEncoder(0.82f, true, 256);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public byte[] thumbnail() throws IOException {
+        File input = file.toFile();
+        return decoder.decode(input, Constants.THUMB_SIZE, this::renderAndEncode);
+    }
+
+    /**
+     * 서브샘플링 없이 원본 해상도로 디코딩했을 때와 비교하기 위한 기준선.
+     */
+    @Benchmark
+    public byte[] thumbnailFullDecode() throws IOException {
+        return renderAndEncode(ImageIO.read(file.toFile()));
+    }
+
+    private byte[] renderAndEncode(BufferedImage image) throws IOException {
+        BufferedImage thumbImg = renderer.resize(image, Constants.THUMB_SIZE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(thumbImg, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,47 @@
+package com.squarecross.photoalbum.image;
+
+import com.squarecross.photoalbum.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 렌더러 단계별 처리량. 모든 코어에서 동시에 돌리므로 결과(ops/s)를 코어 수로 나누면 코어당 썸네일 수가 된다.
+ * 입력은 디코더가 서브샘플링한 뒤의 크기(목표의 2~4배)와 서브샘플링이 안 되는 PNG 원본 크기를 함께 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(Threads.MAX)
+public class ThumbnailRendererBenchmark {
+
+    @Param({"FAST", "QUALITY"})
+    private RenderTier tier;
+
+    @Param({"photo-1000x750", "photo-2000x1500", "screenshot-1920x1080"})
+    private String source;
+
+    private ThumbnailRenderer renderer;
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() {
+        renderer = tier == RenderTier.FAST ? new FastThumbnailRenderer() : new QualityThumbnailRenderer();
+        String[] spec = SampleImages.parse("none-" + source);
+        image = SampleImages.create(spec[1], Integer.parseInt(spec[2]), Integer.parseInt(spec[3]));
+    }
+
+    @Benchmark
+    public BufferedImage resize() {
+        return renderer.resize(image, Constants.THUMB_SIZE);
+    }
+}
@@ -0,0 +1,70 @@
+package com.squarecross.photoalbum.mapper;
+
+import com.squarecross.photoalbum.domain.Album;
+import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.domain.ThumbStatus;
+import com.squarecross.photoalbum.dto.AlbumDto;
+import com.squarecross.photoalbum.dto.PhotoDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 목록 API가 엔티티 목록을 DTO로 바꾸는 비용.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int size;
+
+    private List<Photo> photos;
+    private List<Album> albums;
+
+    @Setup
+    public void setUp() {
+        Date now = new Date();
+        albums = new ArrayList<>(size);
+        photos = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            Album album = new Album();
+            album.setAlbumId(i);
+            album.setAlbumName("앨범 " + i);
+            album.setCreatedAt(now);
+            albums.add(album);
+
+            Photo photo = new Photo();
+            photo.setPhotoId(i);
+            photo.setAlbum(album);
+            photo.setFileName("IMG_" + i + ".jpg");
+            photo.setFileSize(3_000_000);
+            photo.setOriginalUrl("/photos/blobs/ab/cd/" + i);
+            photo.setThumbUrl("/photos/blob-thumbs/ab/cd/" + i + ".jpg");
+            photo.setThumbStatus(ThumbStatus.READY);
+            photo.setUploadedAt(now);
+            photos.add(photo);
+        }
+    }
+
+    @Benchmark
+    public List<PhotoDto> photoDtoList() {
+        return PhotoMapper.convertToDtoList(photos);
+    }
+
+    @Benchmark
+    public List<AlbumDto> albumDtoList() {
+        return AlbumMapper.convertToDtoList(albums);
+    }
+}
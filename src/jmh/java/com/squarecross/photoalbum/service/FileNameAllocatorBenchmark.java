@@ -0,0 +1,83 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 동시 업로드가 파일명을 정할 때(FileNameAllocator.allocate/release)의 락 경합.
+ * 모든 스레드가 같은 앨범에 올리는 경우와 스레드마다 다른 앨범에 올리는 경우를 비교한다.
+ * 접두어 쿼리는 DB 왕복 대신 dbLatencyMicros만큼 멈췄다가 이름 목록을 돌려주는 가짜 리포지토리로 대신한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class FileNameAllocatorBenchmark {
+
+    @Param({"same", "different"})
+    private String albums;
+
+    @Param({"0", "200"})
+    private long dbLatencyMicros;
+
+    @Param({"10", "1000"})
+    private int existingNames;
+
+    private FileNameAllocator allocator;
+    private final AtomicLong nextAlbumId = new AtomicLong(1);
+
+    @Setup
+    public void setUp() {
+        List<String> names = new ArrayList<>(existingNames);
+        names.add("IMG_0001.jpg");
+        for (int i = 2; i <= existingNames; i++) {
+            names.add("IMG_0001 (" + i + ").jpg");
+        }
+        PhotoRepository repository = (PhotoRepository) Proxy.newProxyInstance(
+                PhotoRepository.class.getClassLoader(), new Class<?>[]{PhotoRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findFileNamesByPrefix")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    if (dbLatencyMicros > 0) {
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(dbLatencyMicros));
+                    }
+                    return names;
+                });
+        allocator = new FileNameAllocator();
+        ReflectionTestUtils.setField(allocator, "photoRepository", repository);
+    }
+
+    @State(Scope.Thread)
+    public static class Uploader {
+        private Long albumId;
+
+        @Setup
+        public void setUp(FileNameAllocatorBenchmark benchmark) {
+            albumId = benchmark.albums.equals("same") ? 1L : benchmark.nextAlbumId.getAndIncrement();
+        }
+    }
+
+    @Benchmark
+    public String allocateAndRelease(Uploader uploader) {
+        String fileName = allocator.allocate(uploader.albumId, "IMG_0001.jpg");
+        allocator.release(uploader.albumId, fileName);
+        return fileName;
+    }
+}
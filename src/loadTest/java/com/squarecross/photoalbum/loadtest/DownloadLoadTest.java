@@ -0,0 +1,161 @@
+package com.squarecross.photoalbum.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 실행 중인 서버에 동시 다운로드 부하를 단계적으로 올리며 p99 지연 시간과 처리량을 잰다.
+ * 같은 데이터로 플랫폼 스레드 모드와 가상 스레드 모드(photoalbum.virtual-threads.enabled=true)를
+ * 각각 띄워 실행하고 결과 JSON을 비교한다.
+ *
+ * ./gradlew loadTest -Dload.url=http://localhost:8080 -Dload.album=1 -Dload.photos=1,2,3 -Dload.label=virtual
+ *
+ * "최대 동시 다운로드 수"는 오류율이 1% 미만이고 p99가 load.p99-limit-ms 이하인 가장 큰 동시성 단계다.
+ */
+public class DownloadLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.url", "http://localhost:8080");
+        String albumId = System.getProperty("load.album", "1");
+        String photoIds = System.getProperty("load.photos", "1");
+        String label = System.getProperty("load.label", "platform");
+        int[] steps = parseSteps(System.getProperty("load.steps", "50,100,200,400,800,1600"));
+        Duration stepDuration = Duration.ofSeconds(Long.getLong("load.step-seconds", 30));
+        long p99LimitMs = Long.getLong("load.p99-limit-ms", 5000);
+        Path report = Paths.get(System.getProperty("load.report", "build/reports/loadtest/" + label + ".json"));
+
+        URI uri = URI.create(baseUrl + "/albums/" + albumId + "/photos/download?photoIds=" + photoIds);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        List<StepResult> results = new ArrayList<>();
+        int maxConcurrent = 0;
+        for (int concurrency : steps) {
+            StepResult result = runStep(client, uri, concurrency, stepDuration);
+            results.add(result);
+            System.out.printf("[%s] 동시 %d: 요청 %d, 오류 %d, p50 %dms, p99 %dms, %.1f req/s%n",
+                    label, concurrency, result.requests, result.errors, result.p50Ms, result.p99Ms, result.throughput);
+            if (result.errorRate() < 0.01 && result.p99Ms <= p99LimitMs) {
+                maxConcurrent = concurrency;
+            }
+        }
+        writeReport(report, label, uri, maxConcurrent, results);
+        System.out.printf("[%s] 최대 동시 다운로드: %d (p99 <= %dms, 오류율 < 1%%). 결과: %s%n",
+                label, maxConcurrent, p99LimitMs, report);
+    }
+
+    // 동시성만큼의 가상 사용자가 각자 응답을 끝까지 받은 뒤 바로 다음 요청을 보내는 닫힌 부하 모델.
+    private static StepResult runStep(HttpClient client, URI uri, int concurrency, Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(5)).GET().build();
+
+        List<CompletableFuture<Void>> users = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            users.add(loop(client, request, deadline, latencies, errors));
+        }
+        long started = System.nanoTime();
+        CompletableFuture.allOf(users.toArray(new CompletableFuture[0])).join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new StepResult(concurrency, sorted.size() + errors.get(), errors.get(),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.size() / seconds);
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient client, HttpRequest request, long deadline,
+                                                ConcurrentLinkedQueue<Long> latencies, AtomicLong errors) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, e) -> {
+                    if (e != null || response.statusCode() >= 400) {
+                        errors.incrementAndGet();
+                    } else {
+                        latencies.add((System.nanoTime() - start) / 1_000_000);
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, request, deadline, latencies, errors));
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static int[] parseSteps(String value) {
+        String[] parts = value.split(",");
+        int[] steps = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            steps[i] = Integer.parseInt(parts[i].trim());
+        }
+        return steps;
+    }
+
+    private static void writeReport(Path report, String label, URI uri, int maxConcurrent,
+                                    List<StepResult> results) throws IOException {
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(report, StandardCharsets.UTF_8))) {
+            out.println("{");
+            out.printf("  \"label\": \"%s\",%n", label);
+            out.printf("  \"uri\": \"%s\",%n", uri);
+            out.printf("  \"maxConcurrentDownloads\": %d,%n", maxConcurrent);
+            out.println("  \"steps\": [");
+            for (int i = 0; i < results.size(); i++) {
+                StepResult r = results.get(i);
+                out.printf("    {\"concurrency\": %d, \"requests\": %d, \"errors\": %d, \"p50Ms\": %d, \"p99Ms\": %d, \"throughput\": %.2f}%s%n",
+                        r.concurrency, r.requests, r.errors, r.p50Ms, r.p99Ms, r.throughput,
+                        i < results.size() - 1 ? "," : "");
+            }
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+
+    private static class StepResult {
+        private final int concurrency;
+        private final long requests;
+        private final long errors;
+        private final long p50Ms;
+        private final long p99Ms;
+        private final double throughput;
+
+        StepResult(int concurrency, long requests, long errors, long p50Ms, long p99Ms, double throughput) {
+            this.concurrency = concurrency;
+            this.requests = requests;
+            this.errors = errors;
+            this.p50Ms = p50Ms;
+            this.p99Ms = p99Ms;
+            this.throughput = throughput;
+        }
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+}
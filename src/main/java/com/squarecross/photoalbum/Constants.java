@@ -3,4 +3,5 @@ package com.squarecross.photoalbum;
 public class Constants {
     public static final String PATH_PREFIX = "/Users/jeongjinseop/Documents/photoalbum";
     public static final int THUMB_SIZE = 300;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor"; // 다음 페이지 커서를 내려주는 응답 헤더
 }
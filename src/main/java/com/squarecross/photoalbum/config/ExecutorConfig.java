@@ -0,0 +1,114 @@
+package com.squarecross.photoalbum.config;
+
+import com.squarecross.photoalbum.download.DownloadLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    @Value("${photoalbum.virtual-threads.enabled:false}")
+    private boolean virtualThreads;
+
+    // 한 요청의 파일들을 병렬로 저장하는 워커 풀. 큐가 가득 차면 요청 스레드가 직접 처리해서 자연스럽게 속도를 늦춘다.
+    // 가상 스레드 모드에서는 파일마다 가상 스레드를 만들고, 동시에 처리하는 수는 풀 + 큐 크기와 같게 제한한다.
+    @Bean(name = "uploadExecutor")
+    public AsyncTaskExecutor uploadExecutor(
+            @Value("${photoalbum.upload.threads:4}") int threads,
+            @Value("${photoalbum.upload.queue-capacity:100}") int queueCapacity) {
+        Optional<AsyncTaskExecutor> virtual = virtualExecutor("upload-vt-", threads + queueCapacity);
+        if (virtual.isPresent()) {
+            return virtual.get();
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // 썸네일 렌더링 전용 CPU 워커. 대기 작업은 Photo.thumbStatus로 DB에 남아 있으므로 큐는 제한하지 않는다.
+    // CPU 위주 작업이라 가상 스레드 모드에서도 코어 수만큼의 플랫폼 스레드를 그대로 쓴다.
+    @Bean(name = "thumbnailExecutor")
+    public ThreadPoolTaskExecutor thumbnailExecutor(
+            @Value("${photoalbum.thumbnail.threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("thumbnail-");
+        return executor;
+    }
+
+    // 여러 장 다운로드 시 다음 파일을 미리 읽어 CRC를 계산하는 워커. 디스크 I/O 위주라 적은 수로 충분하다.
+    // 가상 스레드 모드에서는 동시 다운로드마다 미리 읽기가 풀을 기다리지 않도록 제한 없이 가상 스레드를 쓴다.
+    @Bean(name = "zipPrefetchExecutor")
+    public AsyncTaskExecutor zipPrefetchExecutor(
+            @Value("${photoalbum.download.prefetch-threads:4}") int threads) {
+        Optional<AsyncTaskExecutor> virtual = virtualExecutor("zip-prefetch-vt-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+        if (virtual.isPresent()) {
+            return virtual.get();
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("zip-prefetch-");
+        return executor;
+    }
+
+    // 다운로드 본문(StreamingResponseBody)을 쓰는 워커. 동시에 쓰는 수는 DownloadLimiter가 같은 값으로 제한하므로
+    // 큐는 반납과 다음 제출이 겹치는 순간을 위한 여유분이다.
+    @Bean(name = "downloadExecutor")
+    public AsyncTaskExecutor downloadExecutor(
+            @Value("${photoalbum.download.threads:32}") int threads) {
+        Optional<AsyncTaskExecutor> virtual = virtualExecutor("download-vt-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+        if (virtual.isPresent()) {
+            return virtual.get();
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads);
+        executor.setThreadNamePrefix("download-");
+        return executor;
+    }
+
+    // 동시 다운로드 한도. 플랫폼 스레드 모드에서는 downloadExecutor의 스레드 수와 같게 둔다.
+    // 가상 스레드 모드에서는 스레드가 한계가 아니므로 열린 파일/소켓 수를 기준으로 virtual-max-concurrent를 따로 쓴다.
+    @Bean
+    public DownloadLimiter downloadLimiter(
+            @Value("${photoalbum.download.threads:32}") int threads,
+            @Value("${photoalbum.download.virtual-max-concurrent:1000}") int virtualMaxConcurrent) {
+        boolean virtual = virtualThreads && VirtualThreads.factory("download-vt-").isPresent();
+        return new DownloadLimiter(virtual ? virtualMaxConcurrent : threads);
+    }
+
+    // 작업마다 새 가상 스레드를 만든다. concurrencyLimit를 넘으면 제출한 쪽이 자리가 날 때까지 기다린다.
+    private Optional<AsyncTaskExecutor> virtualExecutor(String namePrefix, int concurrencyLimit) {
+        if (!virtualThreads) {
+            return Optional.empty();
+        }
+        Optional<ThreadFactory> factory = VirtualThreads.factory(namePrefix);
+        if (factory.isEmpty()) {
+            log.warn("가상 스레드를 지원하지 않는 JVM이라 {} 작업은 스레드 풀에서 실행합니다.", namePrefix);
+            return Optional.empty();
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(factory.get());
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return Optional.of(executor);
+    }
+}
@@ -0,0 +1,36 @@
+package com.squarecross.photoalbum.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * photoalbum.virtual-threads.enabled=true이면 Tomcat 요청 처리를 요청마다 새 가상 스레드에서 한다.
+ * JDBC/디스크 I/O나 느린 다운로드를 기다리는 동안 플랫폼 스레드를 붙잡지 않으므로
+ * 동시 요청 수가 server.tomcat.threads.max에 묶이지 않는다. Java 21 이상에서만 동작한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "photoalbum.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            ThreadFactory factory = VirtualThreads.factory("http-vt-").orElse(null);
+            if (factory == null) {
+                log.warn("가상 스레드를 지원하지 않는 JVM({})이라 Tomcat 스레드 풀을 그대로 씁니다.",
+                        System.getProperty("java.version"));
+                return;
+            }
+            protocolHandler.setExecutor(command -> factory.newThread(command).start());
+            log.info("Tomcat 요청을 가상 스레드에서 처리합니다.");
+        };
+    }
+}
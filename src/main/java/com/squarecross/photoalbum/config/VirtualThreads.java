@@ -0,0 +1,28 @@
+package com.squarecross.photoalbum.config;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Java 21의 가상 스레드 팩토리를 만든다.
+ * 기본 빌드는 Java 11 대상이라 Thread.ofVirtual()을 직접 부르지 못하므로 리플렉션으로 찾고,
+ * 21 미만 JVM에서 실행 중이면 빈 값을 돌려준다.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static Optional<ThreadFactory> factory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            Method name = ofVirtual.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, namePrefix, 0L);
+            return Optional.of((ThreadFactory) ofVirtual.getMethod("factory").invoke(builder));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
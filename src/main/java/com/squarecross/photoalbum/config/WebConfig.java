@@ -0,0 +1,33 @@
+package com.squarecross.photoalbum.config;
+
+import com.squarecross.photoalbum.download.DownloadLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    @Qualifier("downloadExecutor")
+    private AsyncTaskExecutor downloadExecutor;
+
+    @Autowired
+    private DownloadLimiter downloadLimiter;
+
+    // 큰 ZIP은 오래 걸리므로 서블릿 컨테이너 기본 비동기 타임아웃(30초) 대신 따로 정한다.
+    @Value("${photoalbum.download.timeout-ms:3600000}")
+    private long downloadTimeoutMs;
+
+    // StreamingResponseBody는 Tomcat 요청 스레드가 아니라 다운로드 워커에서 실행된다.
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(downloadExecutor);
+        configurer.setDefaultTimeout(downloadTimeoutMs);
+        configurer.registerCallableInterceptors(downloadLimiter.completionInterceptor());
+    }
+}
@@ -1,6 +1,8 @@
 package com.squarecross.photoalbum.controller;
 
+import com.squarecross.photoalbum.Constants;
 import com.squarecross.photoalbum.dto.AlbumDto;
+import com.squarecross.photoalbum.dto.CursorPage;
 import com.squarecross.photoalbum.service.AlbumService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -32,9 +34,15 @@ public class AlbumController {
     public ResponseEntity<List<AlbumDto>> getAlbumList(
             @RequestParam(value = "keyword", required = false, defaultValue = "") final String keyword,
             @RequestParam(value = "sort", required = false, defaultValue = "byDate") final String sort,
-            @RequestParam(value = "orderBy", required = false, defaultValue = "asc") final String orderBy){
-        List<AlbumDto> albumDtos = albumService.getAlbumList(keyword, sort, orderBy);
-        return new ResponseEntity<>(albumDtos, HttpStatus.OK);
+            @RequestParam(value = "orderBy", required = false, defaultValue = "asc") final String orderBy,
+            @RequestParam(value = "cursor", required = false) final String cursor,
+            @RequestParam(value = "size", required = false) final Integer size){
+        CursorPage<AlbumDto> page = albumService.getAlbumList(keyword, sort, orderBy, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(Constants.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     @RequestMapping(value = "/{albumId}", method = RequestMethod.PUT)
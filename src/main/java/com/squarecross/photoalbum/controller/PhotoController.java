@@ -1,23 +1,37 @@
 package com.squarecross.photoalbum.controller;
 
-import com.squarecross.photoalbum.domain.Photo;
-import com.squarecross.photoalbum.dto.AlbumDto;
+import com.squarecross.photoalbum.Constants;
+import com.squarecross.photoalbum.download.DownloadLimiter;
+import com.squarecross.photoalbum.download.RangeFileSender;
+import com.squarecross.photoalbum.download.ZipStreamer;
+import com.squarecross.photoalbum.dto.CursorPage;
 import com.squarecross.photoalbum.dto.PhotoDto;
+import com.squarecross.photoalbum.image.ByteBufferResource;
+import com.squarecross.photoalbum.image.CachedThumbnail;
+import com.squarecross.photoalbum.image.Rendition;
+import com.squarecross.photoalbum.image.RenditionResource;
 import com.squarecross.photoalbum.service.PhotoService;
-import org.apache.tomcat.util.http.fileupload.IOUtils;
+import com.squarecross.photoalbum.service.RenditionService;
+import com.squarecross.photoalbum.service.ThumbnailService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/albums/{albumId}/photos")
@@ -25,42 +39,79 @@ public class PhotoController {
     @Autowired
     private PhotoService photoService;
 
+    @Autowired
+    private RenditionService renditionService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private RangeFileSender rangeFileSender;
+
+    @Autowired
+    private ZipStreamer zipStreamer;
+
+    @Autowired
+    private DownloadLimiter downloadLimiter;
+
     @RequestMapping(value = "/{photoId}", method = RequestMethod.GET)
     public ResponseEntity<PhotoDto> getPhotoInfo(@PathVariable("photoId") Long photoId) {
         PhotoDto photo = photoService.getPhoto(photoId);
         return new ResponseEntity<>(photo, HttpStatus.OK);
     }
 
+    @GetMapping("/{photoId}/thumb")
+    public ResponseEntity<Resource> getThumbnail(@PathVariable("photoId") Long photoId) {
+        CachedThumbnail thumbnail = thumbnailService.getThumbnail(photoId);
+        // ETag가 If-None-Match와 같으면 스프링이 본문 없이 304로 응답한다.
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(thumbnail.getContentType()))
+                .eTag(thumbnail.getETag())
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS))
+                .body(new ByteBufferResource(thumbnail.getData()));
+    }
+
+    @GetMapping("/{photoId}/renditions/{size}")
+    public ResponseEntity<Resource> getRendition(@PathVariable("photoId") Long photoId,
+                                                 @PathVariable("size") int size) {
+        Rendition rendition = renditionService.getRendition(photoId, size);
+        // 사진 ID는 재사용되지 않으므로 파생 이미지는 사실상 불변이다.
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(rendition.getContentType()))
+                .cacheControl(CacheControl.maxAge(30, TimeUnit.DAYS))
+                .body(new RenditionResource(rendition));
+    }
+
     @RequestMapping(value = "", method = RequestMethod.POST)
     public ResponseEntity<List<PhotoDto>> uploadPhotos(@PathVariable("albumId") final long albumId,
                                                        @RequestParam("photos") MultipartFile[] files){
-        List<PhotoDto> photos = new ArrayList<>();
         for (MultipartFile file : files) {
             if(!photoService.checkFile(file)) {
                 throw new IllegalArgumentException("이미지 파일이 아닙니다.");
             }
-            PhotoDto photoDto = photoService.savePhoto(file, albumId);
-            photos.add(photoDto);
         }
-        return new ResponseEntity<>(photos, HttpStatus.OK);
+        List<PhotoDto> photos = photoService.savePhotos(files, albumId);
+        boolean failed = photos.stream().anyMatch(photo -> photo.getErrorMessage() != null);
+        return new ResponseEntity<>(photos, failed ? HttpStatus.MULTI_STATUS : HttpStatus.OK);
     }
 
+    // 조회와 헤더 설정만 요청 스레드에서 하고, 본문은 다운로드 워커에서 쓴다.
+    // 클라이언트가 끊기면 쓰기가 IOException으로 끝나고, 시간 초과면 워커가 인터럽트되어 전송을 멈춘다.
     @RequestMapping(value = "/download", method = RequestMethod.GET)
-    public void downloadPhotos(@RequestParam("photoIds") Long[] photoIds, HttpServletResponse response) {
-        try{
+    public StreamingResponseBody downloadPhotos(@RequestParam("photoIds") Long[] photoIds,
+                                                HttpServletRequest request, HttpServletResponse response) {
+        try (DownloadLimiter.Slot slot = downloadLimiter.acquire(request)) {
             if(photoIds.length == 1) {
-                File file = photoService.getImageFile(photoIds[0]);
-                OutputStream outputStream = response.getOutputStream();
-                IOUtils.copy(new FileInputStream(file), outputStream);
-                outputStream.close();
+                // 저장소 키는 해시값이므로 내려받을 이름은 사진의 파일명을 쓴다.
+                // sendfile이면 send가 null을 돌려주고 자리는 여기서 바로 반납된다. 본문은 Tomcat이 한도 밖에서 보낸다.
+                PhotoDto photo = photoService.getPhoto(photoIds[0]);
+                return slot.wrap(rangeFileSender.send(photo.getOriginalUrl(), photo.getFileName(), request, response));
             } else {
-                ZipOutputStream zipOutputStream = new ZipOutputStream(response.getOutputStream());
-                for(Long photoId : photoIds) {
-                    File file = photoService.getImageFile(photoId);
-                    zipOutputStream.putNextEntry(new ZipEntry(file.getName()));
-                    IOUtils.copy(new FileInputStream(file), zipOutputStream);
-                }
-                zipOutputStream.close();
+                List<PhotoDto> photos = photoService.getPhotos(Arrays.asList(photoIds));
+                response.setContentType("application/zip");
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("photos.zip").build().toString());
+                return slot.wrap(out -> zipStreamer.write(photos, out));
             }
         } catch(FileNotFoundException e) {
             throw new RuntimeException("Error");
@@ -73,9 +124,15 @@ public class PhotoController {
     public ResponseEntity<List<PhotoDto>> getPhotoList(
             @RequestParam(value = "sort", required = false, defaultValue = "byDate") String sort,
             @RequestParam(value = "keyword", required = false, defaultValue = "") String keyword,
-            @RequestParam(value = "orderBy", required = false, defaultValue = "desc") String orderBy) {
-        List<PhotoDto> photoList = photoService.getPhotoList(keyword, sort, orderBy);
-        return new ResponseEntity<>(photoList, HttpStatus.OK);
+            @RequestParam(value = "orderBy", required = false, defaultValue = "desc") String orderBy,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        CursorPage<PhotoDto> page = photoService.getPhotoList(keyword, sort, orderBy, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(Constants.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     @PutMapping("/move")
@@ -87,6 +144,15 @@ public class PhotoController {
         return new ResponseEntity<>(photoDtos, HttpStatus.OK);
     }
 
+    @PostMapping("/copy")
+    public ResponseEntity<List<PhotoDto>> copyPhotos(
+            @RequestParam("fromAlbumId") Long fromAlbumId,
+            @RequestParam("toAlbumId") Long toAlbumId,
+            @RequestParam("photoIds") List<Long> photoIds) throws IOException {
+        List<PhotoDto> photoDtos = photoService.copyPhotos(fromAlbumId, toAlbumId, photoIds);
+        return new ResponseEntity<>(photoDtos, HttpStatus.OK);
+    }
+
     @DeleteMapping
     public ResponseEntity<List<PhotoDto>> deletePhotos(
             @RequestBody PhotoDto photoDto) throws IOException {
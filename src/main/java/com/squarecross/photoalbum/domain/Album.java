@@ -1,32 +1,78 @@
 package com.squarecross.photoalbum.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Where;
+import org.hibernate.search.annotations.Analyze;
+import org.hibernate.search.annotations.Analyzer;
+import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Fields;
+import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.annotations.SortableField;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Entity
 @Table(name="album", schema = "photo_album", uniqueConstraints = {@UniqueConstraint(columnNames = "album_id")}) // name: 테이블명, schema: 스키마명, uniqueConstraints: 반복되면 안되는 제약조건
 @EntityListeners(AuditingEntityListener.class)
+@Where(clause = "deleted = 0") // 삭제 표시된 앨범은 조회되지 않는다.
+@Indexed
+@Cacheable
+@DynamicUpdate // 바뀐 컬럼만 UPDATE한다. 이름 변경이 사진 업로드가 고친 집계 컬럼을 덮어쓰지 않게 한다.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 앨범은 거의 바뀌지 않으므로 2차 캐시에 둔다. 영역 크기와 TTL은 ehcache.xml
 public class Album {
 
     @Id // 해당 Entity의 Primary Key로 사용한다는 의미
     @GeneratedValue(strategy = GenerationType.IDENTITY) // @Id 값을 새롭게 부여할 때 사용하는 방법에 대한 정보를 입력 strategy = GenerationType.IDENTITY 가장 최근 id에 +1을 해서 다음 아이디를 생성
     @Column(name = "album_id", unique = true, nullable = false) // album 테이블의 매핑되는 column 정보를 입력합니다. name: Column명, unique: 중복불가, nullable: null값 허용
+    @Field(name = "id_sort", analyze = Analyze.NO) // 검색 결과 키셋 페이지네이션용 정렬 필드
+    @SortableField(forField = "id_sort")
     private Long albumId;
 
     @Column(name = "album_name", unique = false, nullable = false)
+    @Fields({
+            @Field(name = "albumName_prefix", analyzer = @Analyzer(definition = "edgeNgram")),
+            @Field(name = "albumName_ngram", analyzer = @Analyzer(definition = "ngram")),
+            @Field(name = "albumName_sort", analyze = Analyze.NO)
+    })
+    @SortableField(forField = "albumName_sort")
     private String albumName;
 
-    @Column(name = "created_at", unique = false, nullable = true)
+    @Column(name = "created_at", unique = false, nullable = false)
     @CreatedDate // 새로운 앨범을 생성해 DB INSERT할 때 자동으로 현재 시간을 입력해줍니다.
+    @Field(analyze = Analyze.NO)
+    @SortableField
     private Date createdAt;
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "album", cascade = CascadeType.ALL)
     private List<Photo> photos;
 
+    @Column(name = "deleted", nullable = false)
+    private boolean deleted;
+
+    // 아래 집계 컬럼은 사진을 올리거나 옮기거나 지울 때 앨범 행을 잠그고 함께 고친다(AlbumStatsService).
+    // 어긋난 값은 AlbumStatsReconciler가 주기적으로 바로잡는다.
+    @Column(name = "photo_count", nullable = false)
+    private int photoCount;
+
+    @Column(name = "total_bytes", nullable = false)
+    private long totalBytes;
+
+    @Column(name = "last_uploaded_at", nullable = true)
+    private Date lastUploadedAt;
+
+    // 대표 사진 ID를 최신순으로 쉼표로 이어 붙인 값 (최대 4개)
+    @Column(name = "cover_photo_ids", nullable = true, length = 100)
+    private String coverPhotoIds;
+
     public Album() {
     }
 
@@ -61,4 +107,56 @@ public class Album {
     public void setPhotos(List<Photo> photos) {
         this.photos = photos;
     }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public int getPhotoCount() {
+        return photoCount;
+    }
+
+    public void setPhotoCount(int photoCount) {
+        this.photoCount = photoCount;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public Date getLastUploadedAt() {
+        return lastUploadedAt;
+    }
+
+    public void setLastUploadedAt(Date lastUploadedAt) {
+        this.lastUploadedAt = lastUploadedAt;
+    }
+
+    public String getCoverPhotoIds() {
+        return coverPhotoIds;
+    }
+
+    public void setCoverPhotoIds(String coverPhotoIds) {
+        this.coverPhotoIds = coverPhotoIds;
+    }
+
+    public List<Long> getCoverPhotoIdList() {
+        if (coverPhotoIds == null || coverPhotoIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(coverPhotoIds.split(",")).map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    public void setCoverPhotoIdList(List<Long> photoIds) {
+        this.coverPhotoIds = photoIds.isEmpty() ? null
+                : photoIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
 }
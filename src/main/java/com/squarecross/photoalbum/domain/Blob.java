@@ -0,0 +1,66 @@
+package com.squarecross.photoalbum.domain;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * SHA-256으로 주소가 정해지는 원본 파일 하나. 같은 내용을 가리키는 Photo 행 수를 refCount로 센다.
+ * refCount가 0이 되면 StorageReclaimer가 파일과 행을 지운다.
+ */
+@Entity
+@Table(name = "photo_blob", schema = "photo_album")
+@EntityListeners(AuditingEntityListener.class)
+public class Blob {
+
+    @Id
+    @Column(name = "hash", length = 64, nullable = false)
+    private String hash;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = true)
+    @CreatedDate
+    private Date createdAt;
+
+    public Blob() {
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,5 +1,15 @@
 package com.squarecross.photoalbum.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Where;
+import org.hibernate.search.annotations.Analyze;
+import org.hibernate.search.annotations.Analyzer;
+import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Fields;
+import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.annotations.SortableField;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -9,14 +19,27 @@ import java.util.Date;
 @Entity
 @Table(name = "photo", schema = "photo_album", uniqueConstraints = {@UniqueConstraint(columnNames = "photo_id")})
 @EntityListeners(AuditingEntityListener.class)
+@Where(clause = "deleted = 0") // 삭제 표시된 사진은 조회되지 않는다. 실제 행/파일은 StorageReclaimer가 정리한다.
+@Indexed
+@Cacheable
+@DynamicUpdate // 바뀐 컬럼만 UPDATE한다. 썸네일 상태 기록이 그 사이 사진 이동을 덮어쓰지 않게 한다.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 2차 캐시 영역. 크기와 TTL은 ehcache.xml
 public class Photo {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "photo_id", unique = true, nullable = false)
+    @Field(name = "id_sort", analyze = Analyze.NO)
+    @SortableField(forField = "id_sort")
     private Long photoId;
 
     @Column(name = "file_name", unique = false, nullable = true)
+    @Fields({
+            @Field(name = "fileName_prefix", analyzer = @Analyzer(definition = "edgeNgram")),
+            @Field(name = "fileName_ngram", analyzer = @Analyzer(definition = "ngram")),
+            @Field(name = "fileName_sort", analyze = Analyze.NO)
+    })
+    @SortableField(forField = "fileName_sort")
     private String fileName;
 
     @Column(name = "file_size", unique = false, nullable = true)
@@ -28,14 +51,30 @@ public class Photo {
     @Column(name = "thumb_url", unique = false, nullable = true)
     private String thumbUrl;
 
-    @Column(name = "uploaded_at", unique = false, nullable = true)
+    @Column(name = "checksum", unique = false, nullable = true, length = 64)
+    private String checksum;
+
+    @Column(name = "thumb_status", unique = false, nullable = true)
+    @Enumerated(EnumType.STRING)
+    private ThumbStatus thumbStatus;
+
+    // 썸네일 인코더가 고른 형식 (image/jpeg, image/png). 이 컬럼이 생기기 전 썸네일은 null이고 thumbUrl 확장자를 따른다.
+    @Column(name = "thumb_content_type", unique = false, nullable = true, length = 64)
+    private String thumbContentType;
+
+    @Column(name = "uploaded_at", unique = false, nullable = false)
     @CreatedDate
+    @Field(analyze = Analyze.NO)
+    @SortableField
     private Date uploadedAt;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "album_id")
     private Album album;
 
+    @Column(name = "deleted", nullable = false)
+    private boolean deleted;
+
     public Photo() {
     }
 
@@ -79,6 +118,30 @@ public class Photo {
         this.thumbUrl = thumbUrl;
     }
 
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public ThumbStatus getThumbStatus() {
+        return thumbStatus;
+    }
+
+    public void setThumbStatus(ThumbStatus thumbStatus) {
+        this.thumbStatus = thumbStatus;
+    }
+
+    public String getThumbContentType() {
+        return thumbContentType;
+    }
+
+    public void setThumbContentType(String thumbContentType) {
+        this.thumbContentType = thumbContentType;
+    }
+
     public Date getUploadedAt() {
         return uploadedAt;
     }
@@ -94,4 +157,12 @@ public class Photo {
     public void setAlbum(Album album) {
         this.album = album;
     }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
 }
@@ -0,0 +1,7 @@
+package com.squarecross.photoalbum.domain;
+
+public enum ThumbStatus {
+    PENDING, // 원본만 저장되고 썸네일 작업을 기다리는 상태
+    READY,
+    FAILED
+}
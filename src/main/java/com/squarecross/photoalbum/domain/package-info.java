@@ -0,0 +1,37 @@
+/**
+ * 파일명/앨범명 검색용 분석기 정의.
+ * <ul>
+ *     <li>edgeNgram: 단어마다 앞에서부터 1~20글자 조각을 색인해 접두어 검색에 쓴다.</li>
+ *     <li>ngram: 이름 전체를 2~3글자 조각으로 잘라 색인하고, 구문(phrase) 검색으로 중간 일치를 찾는다.</li>
+ *     <li>nameQuery: 검색어 쪽 분석기. 조각내지 않고 단어 단위로 소문자만 맞춘다.</li>
+ * </ul>
+ */
+@AnalyzerDefs({
+        @AnalyzerDef(name = "edgeNgram",
+                tokenizer = @TokenizerDef(factory = StandardTokenizerFactory.class),
+                filters = {
+                        @TokenFilterDef(factory = LowerCaseFilterFactory.class),
+                        @TokenFilterDef(factory = EdgeNGramFilterFactory.class, params = {
+                                @Parameter(name = "minGramSize", value = "1"),
+                                @Parameter(name = "maxGramSize", value = "20")})
+                }),
+        @AnalyzerDef(name = "ngram",
+                tokenizer = @TokenizerDef(factory = NGramTokenizerFactory.class, params = {
+                        @Parameter(name = "minGramSize", value = "2"),
+                        @Parameter(name = "maxGramSize", value = "3")}),
+                filters = @TokenFilterDef(factory = LowerCaseFilterFactory.class)),
+        @AnalyzerDef(name = "nameQuery",
+                tokenizer = @TokenizerDef(factory = StandardTokenizerFactory.class),
+                filters = @TokenFilterDef(factory = LowerCaseFilterFactory.class))
+})
+package com.squarecross.photoalbum.domain;
+
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.ngram.EdgeNGramFilterFactory;
+import org.apache.lucene.analysis.ngram.NGramTokenizerFactory;
+import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.hibernate.search.annotations.AnalyzerDef;
+import org.hibernate.search.annotations.AnalyzerDefs;
+import org.hibernate.search.annotations.Parameter;
+import org.hibernate.search.annotations.TokenFilterDef;
+import org.hibernate.search.annotations.TokenizerDef;
@@ -0,0 +1,90 @@
+package com.squarecross.photoalbum.download;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 동시에 본문을 쓰는 다운로드 수를 제한한다.
+ * 자리가 없으면 헤더를 쓰기 전에 바로 503으로 돌려보내고, 자리를 얻은 다운로드는 본문을 다 쓰거나 실패하면 반납한다.
+ * 한도는 ExecutorConfig가 정한다. 플랫폼 스레드 모드에서는 다운로드 워커 풀의 스레드 수와 같아 자리를 얻은 본문이
+ * 워커 큐에서 기다리지 않고, 가상 스레드 모드에서는 스레드가 아니라 열린 파일과 소켓 수를 기준으로 따로 정한다.
+ * 본문이 실행되기 전에 비동기 요청이 시간 초과로 취소되는 경우는 completionInterceptor가 반납한다.
+ * sendfile로 보내는 응답(RangeFileSender.send가 null)은 Tomcat이 본문을 쓰기 전에 자리를 반납하므로 이 한도에 들지 않는다.
+ */
+public class DownloadLimiter {
+
+    private static final String SLOT_ATTRIBUTE = DownloadLimiter.class.getName() + ".SLOT";
+
+    private final Semaphore slots;
+
+    public DownloadLimiter(int maxConcurrent) {
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    public Slot acquire(HttpServletRequest request) {
+        if (!slots.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "동시 다운로드가 너무 많습니다. 잠시 후 다시 시도해 주세요.");
+        }
+        Slot slot = new Slot();
+        request.setAttribute(SLOT_ATTRIBUTE, slot);
+        return slot;
+    }
+
+    // 비동기 요청이 어떻게 끝나든(완료, 시간 초과, 오류) 마지막에 자리를 반납한다. 이미 반납했으면 아무것도 하지 않는다.
+    public CallableProcessingInterceptor completionInterceptor() {
+        return new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                Object slot = request.getAttribute(SLOT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (slot instanceof Slot) {
+                    ((Slot) slot).release();
+                }
+            }
+        };
+    }
+
+    public class Slot implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private boolean handedOff;
+
+        /**
+         * 본문을 다 쓰면 자리를 반납하도록 감싼다. null이면(보낼 본문이 없으면) 그대로 null.
+         */
+        public StreamingResponseBody wrap(StreamingResponseBody body) {
+            if (body == null) {
+                return null;
+            }
+            handedOff = true;
+            return out -> {
+                try {
+                    body.writeTo(out);
+                } finally {
+                    release();
+                }
+            };
+        }
+
+        // 본문을 넘기지 않고 끝났으면(예외, 본문 없음) 여기서 반납한다.
+        @Override
+        public void close() {
+            if (!handedOff) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.squarecross.photoalbum.download;
+
+import com.squarecross.photoalbum.metrics.PhotoMetrics;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import com.squarecross.photoalbum.storage.StoredObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * 원본 파일 한 개를 내려보낸다. Range / If-Range 요청이면 206 부분 응답을 보내고,
+ * 로컬 저장소에서 Tomcat NIO 커넥터가 sendfile을 지원하면 커널 복사(zero-copy)를 쓰며 아니면 FileChannel.transferTo로 보낸다.
+ * 원격 저장소는 해당 구간만 범위 읽기로 받아 보낸다.
+ * sendfile이 아닌 경우 본문은 StreamingResponseBody로 돌려주어 요청 스레드가 아니라 다운로드 워커에서 쓴다.
+ */
+@Component
+public class RangeFileSender {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private PhotoMetrics photoMetrics;
+
+    /**
+     * 상태 코드와 헤더를 정하고, 본문을 쓸 StreamingResponseBody를 돌려준다.
+     * 보낼 본문이 없거나(416) Tomcat이 sendfile로 직접 보내는 경우에는 null.
+     */
+    public StreamingResponseBody send(String key, String downloadName,
+                                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredObject object = storage.stat(key);
+        long length = object.getSize();
+        long lastModified = object.getLastModified();
+        String eTag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        MediaType mediaType = MediaTypeFactory.getMediaType(downloadName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setContentType(mediaType.toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(downloadName, StandardCharsets.UTF_8).build().toString());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, eTag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return null;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+
+        Optional<Path> local = storage.localPath(key);
+        if (local.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 서블릿이 반환된 뒤 Tomcat이 소켓으로 직접 파일을 보낸다. end는 배타적(exclusive) 위치다.
+            request.setAttribute(SENDFILE_FILENAME, local.get().toFile().getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            photoMetrics.fileSent(count);
+            return null;
+        }
+        long offset = start;
+        return out -> {
+            transfer(key, local, offset, count, out);
+            photoMetrics.fileSent(count);
+        };
+    }
+
+    private void transfer(String key, Optional<Path> local, long start, long count,
+                          OutputStream output) throws IOException {
+        if (local.isEmpty()) {
+            // 원격 저장소는 필요한 구간만 받아서 그대로 흘려보낸다.
+            try (InputStream in = storage.read(key, start, count)) {
+                if (in.transferTo(output) < count) {
+                    throw new EOFException("파일이 stat 크기보다 짧습니다: " + key);
+                }
+            }
+            return;
+        }
+        // transferTo는 인터럽트되면 채널을 닫고 멈추므로, 요청이 시간 초과로 취소되면 복사도 바로 끝난다.
+        try (FileChannel channel = FileChannel.open(local.get(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(output);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                // 파일이 stat 뒤에 줄었으면 끝에서 0을 돌려준다. 계속 돌면 다운로드 자리를 붙잡고 멈추지 않는다.
+                if (sent <= 0) {
+                    throw new EOFException("파일이 stat 크기보다 짧습니다: " + key);
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // If-Range가 없거나 현재 ETag/수정 시각과 정확히 같을 때만 Range를 적용한다. 다르면 전체 파일을 새로 보낸다.
+    private static boolean ifRangeMatches(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && lastModified / 1000 == date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * "bytes=start-end" 형식의 단일 구간을 해석한다.
+     * 만족할 수 없는 구간이면 null, 여러 구간이나 끝이 시작보다 앞선 구간처럼 지원하지 않거나 잘못된 형식이면
+     * 빈 배열(Range를 무시하고 전체 전송)을 돌려준다.
+     */
+    static long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // bytes=-500 : 마지막 500바이트
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                if (!last.isEmpty() && Long.parseLong(last) < start) {
+                    // RFC 7233: 끝이 시작보다 앞선 구간은 문법 오류이므로 416이 아니라 Range를 무시한다.
+                    return new long[0];
+                }
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
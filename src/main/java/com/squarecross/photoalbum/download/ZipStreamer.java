@@ -0,0 +1,227 @@
+package com.squarecross.photoalbum.download;
+
+import com.squarecross.photoalbum.dto.PhotoDto;
+import com.squarecross.photoalbum.metrics.PhotoMetrics;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import com.squarecross.photoalbum.storage.StoredObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 여러 사진을 ZIP으로 묶어 바로 스트리밍한다.
+ * 이미 압축된 이미지 형식은 STORED로 넣어 CPU를 쓰지 않고, STORED에 필요한 CRC는 다음 파일들을 미리 읽으면서
+ * 백그라운드에서 계산한다. 원격 저장소는 이 읽기에서 로컬 임시 파일로 받아 두고 그 파일을 보내므로 객체를 한 번만 내려받는다.
+ * 임시 파일은 다운로드 한 건당 readAhead + 1개를 넘지 않는다. 로컬 저장소는 원본을 직접 읽으며, 두 번째 읽기는 CRC 계산이
+ * 데워 둔 페이지 캐시에서 나온다. 4GB나 65535개를 넘으면 ZipOutputStream이 ZIP64로 기록한다.
+ */
+@Component
+public class ZipStreamer {
+
+    private static final Logger log = LoggerFactory.getLogger(ZipStreamer.class);
+
+    private static final Set<String> STORED_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp", "heic", "heif");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private PhotoMetrics photoMetrics;
+
+    @Autowired
+    @Qualifier("zipPrefetchExecutor")
+    private Executor zipPrefetchExecutor;
+
+    @Value("${photoalbum.download.read-ahead:2}")
+    private int readAhead;
+
+    public void write(List<PhotoDto> photos, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Set<String> entryNames = new HashSet<>();
+        Deque<CompletableFuture<PreparedEntry>> window = new ArrayDeque<>();
+        AtomicBoolean aborted = new AtomicBoolean();
+        int next = 0;
+        try {
+            for (int i = 0; i < photos.size(); i++) {
+                // 요청이 시간 초과로 취소되면 다운로드 워커가 인터럽트된다. 다음 파일로 넘어가지 않고 멈춘다.
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("ZIP 전송이 취소되었습니다.");
+                }
+                // 지금 보내는 파일 뒤로 readAhead개까지 미리 준비해 둔다.
+                while (next < photos.size() && next <= i + readAhead) {
+                    PhotoDto photo = photos.get(next++);
+                    window.add(CompletableFuture.supplyAsync(() -> prepare(photo, aborted), zipPrefetchExecutor));
+                }
+                PreparedEntry entry = await(window.poll());
+                long sent;
+                try {
+                    zip.putNextEntry(entry.toZipEntry(uniqueName(entry.name, entryNames)));
+                    try (InputStream in = entry.open(storage)) {
+                        sent = in.transferTo(zip);
+                    }
+                    zip.closeEntry();
+                } finally {
+                    entry.discard();
+                }
+                photoMetrics.zipEntrySent(sent);
+            }
+            zip.finish();
+        } finally {
+            // 클라이언트가 끊기거나(쓰기에서 IOException) 취소되어 중간에 실패하면 남은 미리 읽기를 멈춘다.
+            // 이미 받아 둔 임시 파일은 미리 읽기가 끝나는 대로 지운다.
+            aborted.set(true);
+            window.forEach(future -> future.thenAccept(PreparedEntry::discard));
+        }
+    }
+
+    private PreparedEntry prepare(PhotoDto photo, AtomicBoolean aborted) {
+        String key = photo.getOriginalUrl();
+        String ext = StringUtils.getFilenameExtension(photo.getFileName());
+        boolean stored = ext != null && STORED_EXTENSIONS.contains(ext.toLowerCase());
+        try {
+            if (aborted.get()) {
+                throw new InterruptedIOException("ZIP 전송이 취소되었습니다.");
+            }
+            StoredObject object = storage.stat(key);
+            if (!stored) {
+                return new PreparedEntry(photo.getFileName(), key, null, false, object.getSize(), 0,
+                        object.getLastModified());
+            }
+            Optional<Path> local = storage.localPath(key);
+            Path staged = local.isPresent() ? null : storage.createTempFile();
+            CRC32 crc32 = new CRC32();
+            long size;
+            try (InputStream source = local.isPresent() ? Files.newInputStream(local.get()) : storage.read(key);
+                 OutputStream out = staged != null ? Files.newOutputStream(staged) : OutputStream.nullOutputStream()) {
+                size = transfer(new CheckedInputStream(source, crc32), out, aborted);
+            } catch (IOException | RuntimeException e) {
+                if (staged != null) {
+                    Files.deleteIfExists(staged);
+                }
+                throw e;
+            }
+            return new PreparedEntry(photo.getFileName(), key, staged, true, size, crc32.getValue(),
+                    object.getLastModified());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long transfer(InputStream in, OutputStream out, AtomicBoolean aborted) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (aborted.get()) {
+                throw new InterruptedIOException("ZIP 전송이 취소되었습니다.");
+            }
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    private static PreparedEntry await(CompletableFuture<PreparedEntry> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    // 서로 다른 앨범의 같은 파일명이 ZIP 안에서 겹치지 않도록 "이름 (n).확장자"로 바꾼다.
+    static String uniqueName(String fileName, Set<String> used) {
+        if (used.add(fileName)) {
+            return fileName;
+        }
+        String fileNameNoExt = StringUtils.stripFilenameExtension(fileName);
+        String ext = StringUtils.getFilenameExtension(fileName);
+        int count = 2;
+        String candidate;
+        do {
+            candidate = ext != null
+                    ? String.format("%s (%d).%s", fileNameNoExt, count, ext)
+                    : String.format("%s (%d)", fileNameNoExt, count);
+            count++;
+        } while (!used.add(candidate));
+        return candidate;
+    }
+
+    private static class PreparedEntry {
+        private final String name;
+        private final String key;
+        private final Path staged;
+        private final boolean stored;
+        private final long size;
+        private final long crc;
+        private final long lastModified;
+
+        PreparedEntry(String name, String key, Path staged, boolean stored, long size, long crc, long lastModified) {
+            this.name = name;
+            this.key = key;
+            this.staged = staged;
+            this.stored = stored;
+            this.size = size;
+            this.crc = crc;
+            this.lastModified = lastModified;
+        }
+
+        ZipEntry toZipEntry(String entryName) {
+            ZipEntry entry = new ZipEntry(entryName);
+            entry.setTime(lastModified);
+            if (stored) {
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(size);
+                entry.setCompressedSize(size);
+                entry.setCrc(crc);
+            }
+            return entry;
+        }
+
+        // 받아 둔 임시 파일이 있으면 그것을, 없으면 저장소를 읽는다.
+        InputStream open(StorageBackend storage) throws IOException {
+            return staged != null ? Files.newInputStream(staged) : storage.read(key);
+        }
+
+        void discard() {
+            if (staged == null) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException e) {
+                log.warn("ZIP 임시 파일 삭제 실패: {}", staged, e);
+            }
+        }
+    }
+}
@@ -8,6 +8,8 @@ public class AlbumDto {
     private String albumName;
     private Date createdAt;
     private int count;
+    private long totalBytes;
+    private Date lastUploadedAt;
     private List<String> thumbUrls;
 
     public Long getAlbumId() {
@@ -42,6 +44,22 @@ public class AlbumDto {
         this.count = count;
     }
 
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public Date getLastUploadedAt() {
+        return lastUploadedAt;
+    }
+
+    public void setLastUploadedAt(Date lastUploadedAt) {
+        this.lastUploadedAt = lastUploadedAt;
+    }
+
     public List<String> getThumbUrls() {
         return thumbUrls;
     }
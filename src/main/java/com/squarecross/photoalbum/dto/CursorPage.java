@@ -0,0 +1,22 @@
+package com.squarecross.photoalbum.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    // 마지막 페이지면 null
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
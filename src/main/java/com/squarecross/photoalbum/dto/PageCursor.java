@@ -0,0 +1,61 @@
+package com.squarecross.photoalbum.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 키셋 페이지네이션 위치 (정렬 키, ID). 클라이언트에는 내부 구조를 알 수 없는 base64url 토큰으로 내려준다.
+ */
+public class PageCursor {
+
+    public static final PageCursor FIRST = new PageCursor(null, null);
+
+    private static final char SEPARATOR = '\n';
+
+    private final String key;
+    private final Long id;
+
+    private PageCursor(String key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public static String encode(String key, Long id) {
+        String raw = key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encode(Date key, Long id) {
+        return encode(Long.toString(key.getTime()), id);
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new PageCursor(raw.substring(0, separator), Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다.");
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Date getDateKey() {
+        try {
+            return key == null ? null : new Date(Long.parseLong(key));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다.");
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
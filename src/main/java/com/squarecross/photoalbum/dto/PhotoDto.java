@@ -9,9 +9,11 @@ public class PhotoDto {
     private int fileSize;
     private String originalUrl;
     private String thumbUrl;
+    private String thumbStatus;
     private Date uploadedAt;
     private Long albumId;
     private List<Long> photoIds;
+    private String errorMessage;
 
     public Long getPhotoId() {
         return photoId;
@@ -53,6 +55,14 @@ public class PhotoDto {
         this.thumbUrl = thumbUrl;
     }
 
+    public String getThumbStatus() {
+        return thumbStatus;
+    }
+
+    public void setThumbStatus(String thumbStatus) {
+        this.thumbStatus = thumbStatus;
+    }
+
     public Date getUploadedAt() {
         return uploadedAt;
     }
@@ -76,4 +86,12 @@ public class PhotoDto {
     public void setPhotoIds(List<Long> photoIds) {
         this.photoIds = photoIds;
     }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
 }
@@ -0,0 +1,32 @@
+package com.squarecross.photoalbum.image;
+
+import java.nio.ByteBuffer;
+
+public class CachedThumbnail {
+    private final ByteBuffer data;
+    private final String eTag;
+    private final String contentType;
+
+    public CachedThumbnail(ByteBuffer data, String eTag, String contentType) {
+        this.data = data;
+        this.eTag = eTag;
+        this.contentType = contentType;
+    }
+
+    // 여러 요청이 동시에 읽으므로 위치(position)를 공유하지 않는 읽기 전용 뷰를 돌려준다.
+    public ByteBuffer getData() {
+        return data.asReadOnlyBuffer();
+    }
+
+    public int getSize() {
+        return data.capacity();
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,41 @@
+package com.squarecross.photoalbum.image;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 동시에 디코딩 중인 픽셀 수의 총합을 제한하는 승인(admission) 컨트롤러.
+ * 픽셀 수를 1024 단위 퍼밋으로 바꿔 세마포어에서 얻고, 예산을 넘으면 다른 디코딩이 끝날 때까지 기다린다.
+ */
+@Component
+public class DecodeBudget {
+
+    private static final int PIXELS_PER_PERMIT = 1024;
+
+    private final int totalPermits;
+    private final Semaphore permits;
+
+    public DecodeBudget(@Value("${photoalbum.thumbnail.decode-budget-pixels:67108864}") long budgetPixels) {
+        this.totalPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetPixels / PIXELS_PER_PERMIT));
+        this.permits = new Semaphore(totalPermits, true);
+    }
+
+    public int acquire(long pixels) throws InterruptedIOException {
+        // 예산보다 큰 이미지 한 장은 예산 전체를 잡고 혼자 디코딩한다.
+        int needed = (int) Math.min(totalPermits, Math.max(1, (pixels + PIXELS_PER_PERMIT - 1) / PIXELS_PER_PERMIT));
+        try {
+            permits.acquire(needed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("디코딩 대기 중 인터럽트되었습니다.");
+        }
+        return needed;
+    }
+
+    public void release(int acquired) {
+        permits.release(acquired);
+    }
+}
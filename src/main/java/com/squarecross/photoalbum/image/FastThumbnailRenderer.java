@@ -0,0 +1,82 @@
+package com.squarecross.photoalbum.image;
+
+import org.springframework.stereotype.Component;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 절반으로 줄여도 목표보다 클 동안 절반씩 줄이고(bilinear) 마지막에 한 번 더 bilinear로 맞춘다.
+ * 디코더가 이미 목표의 2~4배로 서브샘플링해 주므로 보통 한두 단계로 끝난다.
+ * 중간 단계 이미지는 스레드마다 크기별로 몇 개만 보관해 다시 쓰고, 결과 이미지만 새로 만든다.
+ */
+@Component
+public class FastThumbnailRenderer implements ThumbnailRenderer {
+
+    private static final int POOLED_BUFFERS = 4;
+
+    // 같은 원본 해상도(카메라/화면 크기)가 반복되므로 최근에 쓴 크기의 버퍼 몇 개면 대부분 다시 쓸 수 있다.
+    private static final ThreadLocal<Map<Long, BufferedImage>> BUFFERS = ThreadLocal.withInitial(
+            () -> new LinkedHashMap<>(POOLED_BUFFERS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                    return size() > POOLED_BUFFERS;
+                }
+            });
+
+    @Override
+    public BufferedImage resize(BufferedImage source, int targetSize) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        // Scalr.resize(img, size, size)와 같이 긴 변을 targetSize에 맞춘다.
+        int targetWidth;
+        int targetHeight;
+        if (width >= height) {
+            targetWidth = targetSize;
+            targetHeight = Math.max(1, Math.round((float) height * targetSize / width));
+        } else {
+            targetHeight = targetSize;
+            targetWidth = Math.max(1, Math.round((float) width * targetSize / height));
+        }
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            BufferedImage step = buffer(width, height, type);
+            draw(current, step, width, height);
+            current = step;
+        }
+        BufferedImage result = new BufferedImage(targetWidth, targetHeight, type);
+        draw(current, result, targetWidth, targetHeight);
+        return result;
+    }
+
+    @Override
+    public RenderTier getTier() {
+        return RenderTier.FAST;
+    }
+
+    private static BufferedImage buffer(int width, int height, int type) {
+        long key = ((long) width << 32) | ((long) height << 1) | (type == BufferedImage.TYPE_INT_ARGB ? 1 : 0);
+        return BUFFERS.get().computeIfAbsent(key, k -> new BufferedImage(width, height, type));
+    }
+
+    private static void draw(BufferedImage source, BufferedImage target, int width, int height) {
+        Graphics2D g = target.createGraphics();
+        try {
+            // 재사용한 버퍼에 남은 이전 내용(투명 영역 포함)을 그대로 덮어쓴다.
+            g.setComposite(AlphaComposite.Src);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+    }
+}
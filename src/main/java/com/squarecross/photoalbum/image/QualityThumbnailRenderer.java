@@ -0,0 +1,20 @@
+package com.squarecross.photoalbum.image;
+
+import org.imgscalr.Scalr;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+
+@Component
+public class QualityThumbnailRenderer implements ThumbnailRenderer {
+
+    @Override
+    public BufferedImage resize(BufferedImage source, int targetSize) {
+        return Scalr.resize(source, Scalr.Method.ULTRA_QUALITY, targetSize, targetSize);
+    }
+
+    @Override
+    public RenderTier getTier() {
+        return RenderTier.QUALITY;
+    }
+}
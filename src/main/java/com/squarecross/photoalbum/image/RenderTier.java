@@ -0,0 +1,6 @@
+package com.squarecross.photoalbum.image;
+
+public enum RenderTier {
+    FAST,    // 절반씩 줄인 뒤 bilinear 한 번. 코어당 처리량 우선
+    QUALITY  // Scalr ULTRA_QUALITY. 계단 현상이 가장 적다
+}
@@ -0,0 +1,32 @@
+package com.squarecross.photoalbum.image;
+
+import java.io.File;
+
+public class Rendition {
+    private final File file;
+    private final String contentType;
+    // 파일을 다 보낸 뒤 부른다. 캐시 파일이면 RenditionCache의 고정을 푼다.
+    private final Runnable release;
+
+    public Rendition(File file, String contentType) {
+        this(file, contentType, () -> { });
+    }
+
+    public Rendition(File file, String contentType, Runnable release) {
+        this.file = file;
+        this.contentType = contentType;
+        this.release = release;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void release() {
+        release.run();
+    }
+}
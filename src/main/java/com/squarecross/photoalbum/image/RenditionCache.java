@@ -0,0 +1,196 @@
+package com.squarecross.photoalbum.image;
+
+import com.squarecross.photoalbum.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 리사이즈된 파생 이미지를 디스크에 보관하는 크기 제한 LRU 캐시.
+ * 키는 캐시 디렉토리 기준 상대 경로이고, 전체 바이트가 maxBytes를 넘으면 가장 오래 쓰지 않은 파일부터 지운다.
+ * 응답으로 보내는 중인 파일은 acquire/register로 고정되어 있고, 그동안 캐시에서 빠지면 release될 때 지운다.
+ * 고정을 풀지 못한 채 pin-timeout이 지나면 그냥 지운다.
+ */
+@Component
+public class RenditionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RenditionCache.class);
+
+    private final Path root;
+    private final long maxBytes;
+    private final long pinTimeoutMillis;
+
+    // accessOrder = true 이므로 순회 순서가 곧 LRU 순서다.
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long totalBytes;
+
+    // 키 → 고정 상태. 캐시에서 빠졌지만 아직 보내는 중인 파일은 doomed에 남겨 두었다가 지운다.
+    private final Map<String, Pin> pins = new HashMap<>();
+    private final Set<String> doomed = new HashSet<>();
+
+    public RenditionCache(@Value("${photoalbum.rendition.cache-dir:}") String cacheDir,
+                          @Value("${photoalbum.rendition.max-bytes:2147483648}") long maxBytes,
+                          @Value("${photoalbum.rendition.pin-timeout-ms:600000}") long pinTimeoutMillis) {
+        this.root = Paths.get(cacheDir.isEmpty() ? Constants.PATH_PREFIX + "/photos/rendition" : cacheDir);
+        this.maxBytes = maxBytes;
+        this.pinTimeoutMillis = pinTimeoutMillis;
+    }
+
+    // 재기동 시 디스크에 남은 파일을 수정 시각 순으로 다시 등록한다.
+    @PostConstruct
+    public void load() throws IOException {
+        Files.createDirectories(root);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(RenditionCache::lastModified))
+                    .collect(Collectors.toList());
+        }
+        synchronized (this) {
+            for (Path file : files) {
+                long size = file.toFile().length();
+                entries.put(root.relativize(file).toString(), size);
+                totalBytes += size;
+            }
+            evict();
+        }
+    }
+
+    public Path resolve(String key) {
+        return root.resolve(key);
+    }
+
+    /**
+     * 캐시에 있으면 최근 사용으로 표시하고, 다 보낼 때까지 지워지지 않게 고정한 뒤 경로를 돌려준다. 없으면 null.
+     * 돌려받은 경로는 다 쓴 뒤 반드시 release해야 한다.
+     */
+    public synchronized Path acquire(String key) {
+        if (entries.get(key) == null) {
+            return null;
+        }
+        pin(key);
+        return root.resolve(key);
+    }
+
+    /**
+     * resolve(key) 위치에 다 쓴 파일을 캐시에 등록하고 필요하면 오래된 항목을 지운다.
+     * 등록한 파일은 acquire처럼 고정된 상태로 돌려준다.
+     */
+    public synchronized Path register(String key) {
+        long size = resolve(key).toFile().length();
+        Long previous = entries.put(key, size);
+        totalBytes += size - (previous != null ? previous : 0);
+        // 같은 자리에 새 파일을 옮겨 놓았으므로 예전 파일을 지우기로 한 예약은 취소한다.
+        doomed.remove(key);
+        pin(key);
+        evict();
+        deleteExpired();
+        return root.resolve(key);
+    }
+
+    public synchronized void release(String key) {
+        Pin pin = pins.get(key);
+        if (pin == null) {
+            return;
+        }
+        if (--pin.count == 0) {
+            pins.remove(key);
+            if (doomed.remove(key)) {
+                deleteQuietly(root.resolve(key));
+            }
+        }
+    }
+
+    public synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+            discard(key);
+        }
+    }
+
+    public synchronized void removeByPrefix(String prefix) {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                it.remove();
+                totalBytes -= entry.getValue();
+                discard(entry.getKey());
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            discard(eldest.getKey());
+        }
+    }
+
+    private void pin(String key) {
+        Pin pin = pins.computeIfAbsent(key, k -> new Pin());
+        pin.count++;
+        pin.acquiredAt = System.currentTimeMillis();
+    }
+
+    // 보내는 중인 파일은 마지막 release 때 지운다.
+    private void discard(String key) {
+        if (pins.containsKey(key)) {
+            doomed.add(key);
+        } else {
+            deleteQuietly(root.resolve(key));
+        }
+    }
+
+    // 응답이 끝나지 않아 release되지 않은 고정은 pin-timeout이 지나면 풀고 지운다.
+    private void deleteExpired() {
+        long deadline = System.currentTimeMillis() - pinTimeoutMillis;
+        Iterator<String> it = doomed.iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            if (pins.get(key).acquiredAt < deadline) {
+                it.remove();
+                pins.remove(key);
+                deleteQuietly(root.resolve(key));
+            }
+        }
+    }
+
+    private static final class Pin {
+        private int count;
+        private long acquiredAt;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("파생 이미지 삭제 실패: {}", path, e);
+        }
+    }
+
+    private static long lastModified(Path path) {
+        return path.toFile().lastModified();
+    }
+}
@@ -0,0 +1,38 @@
+package com.squarecross.photoalbum.image;
+
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 파생 이미지 파일을 응답 본문으로 보내고, 본문 스트림이 닫히면(다 보냈거나 클라이언트가 끊었을 때) 고정을 푼다.
+ */
+public class RenditionResource extends FileSystemResource {
+
+    private final Rendition rendition;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    public RenditionResource(Rendition rendition) {
+        super(rendition.getFile());
+        this.rendition = rendition;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new FilterInputStream(super.getInputStream()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        rendition.release();
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package com.squarecross.photoalbum.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Function;
+
+/**
+ * 썸네일 바이트를 사진 ID 기준으로 메모리에 보관하는 캐시.
+ * 항목 수가 아니라 바이트 크기로 무게를 매기고, Caffeine의 W-TinyLFU로 교체 대상을 고른다.
+ * off-heap 옵션을 켜면 바이트를 direct 버퍼에 담아 GC 대상 힙을 줄인다.
+ * 적중률은 cache.gets{cache="thumbnail",result=hit|miss}로 노출된다.
+ */
+@Component
+public class ThumbnailByteCache implements MeterBinder {
+
+    private final Cache<Long, CachedThumbnail> cache;
+    private final boolean offHeap;
+
+    public ThumbnailByteCache(@Value("${photoalbum.thumbnail.cache.max-bytes:67108864}") long maxBytes,
+                              @Value("${photoalbum.thumbnail.cache.off-heap:false}") boolean offHeap) {
+        this.offHeap = offHeap;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long photoId, CachedThumbnail thumbnail) -> thumbnail.getSize())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "thumbnail");
+    }
+
+    public CachedThumbnail get(Long photoId, Function<Long, CachedThumbnail> loader) {
+        return cache.get(photoId, loader);
+    }
+
+    public void invalidate(Long photoId) {
+        cache.invalidate(photoId);
+    }
+
+    public CachedThumbnail create(byte[] bytes, String contentType) {
+        ByteBuffer data;
+        if (offHeap) {
+            data = ByteBuffer.allocateDirect(bytes.length);
+            data.put(bytes).flip();
+        } else {
+            data = ByteBuffer.wrap(bytes);
+        }
+        return new CachedThumbnail(data, strongETag(bytes), contentType);
+    }
+
+    // 내용에서 계산한 강한 ETag. 썸네일이 다시 만들어져도 바이트가 같으면 클라이언트 캐시가 그대로 유효하다.
+    private static String strongETag(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder sb = new StringBuilder("\"");
+            for (int i = 0; i < 16; i++) {
+                sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return sb.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.squarecross.photoalbum.image;
+
+import com.squarecross.photoalbum.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * 원본을 통째로 디코딩하지 않고, 헤더에서 크기를 먼저 읽은 뒤 목표 크기에 가까운 해상도로만 디코딩한다.
+ */
+@Component
+public class ThumbnailDecoder {
+
+    @Autowired
+    private DecodeBudget decodeBudget;
+
+    public interface ImageProcessor<T> {
+        T process(BufferedImage image) throws IOException;
+    }
+
+    /**
+     * 저장소의 원본을 디코딩한다. 로컬 파일이면 파일에서 바로 읽고, 아니면 스트림으로 받아 읽는다.
+     */
+    public <T> T decode(StorageBackend storage, String key, int targetSize, ImageProcessor<T> processor) throws IOException {
+        Optional<Path> local = storage.localPath(key);
+        if (local.isPresent()) {
+            return decode(local.get().toFile(), targetSize, processor);
+        }
+        try (InputStream in = storage.read(key)) {
+            return decode(in, targetSize, processor);
+        }
+    }
+
+    /**
+     * 긴 변이 targetSize 이상이 되도록 서브샘플링해서 디코딩하고, processor가 끝날 때까지 디코딩 예산을 잡고 있는다.
+     */
+    public <T> T decode(File source, int targetSize, ImageProcessor<T> processor) throws IOException {
+        return decodeInput(source, targetSize, processor);
+    }
+
+    public <T> T decode(InputStream source, int targetSize, ImageProcessor<T> processor) throws IOException {
+        return decodeInput(source, targetSize, processor);
+    }
+
+    // ImageIO.createImageInputStream은 File과 InputStream을 모두 받는다.
+    private <T> T decodeInput(Object source, int targetSize, ImageProcessor<T> processor) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(source)) {
+            if (iis == null) {
+                throw new IOException("파일을 열 수 없습니다: " + source);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("읽을 수 없는 이미지 형식입니다.");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int subsampling = subsamplingFor(width, height, targetSize);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                long pixels = (long) ceilDiv(width, subsampling) * ceilDiv(height, subsampling);
+
+                int acquired = decodeBudget.acquire(pixels);
+                try {
+                    return processor.process(reader.read(0, param));
+                } finally {
+                    decodeBudget.release(acquired);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 서브샘플링은 단순 건너뛰기라 계단 현상이 생기므로, 목표의 2배 해상도까지만 줄이고 나머지는 리사이즈에 맡긴다.
+    static int subsamplingFor(int width, int height, int targetSize) {
+        int longSide = Math.max(width, height);
+        return Math.max(1, longSide / (targetSize * 2));
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,177 @@
+package com.squarecross.photoalbum.image;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 원본 형식과 관계없이 썸네일 내용을 보고 출력 형식을 고른다.
+ * - 색이 palette-max-colors개 이하인 단순한 그림(화면 캡처, 아이콘 등): 팔레트 PNG (무손실)
+ * - 반투명 픽셀이 있는 이미지: PNG (JPEG는 알파를 담지 못한다)
+ * - 그 밖의 사진: 품질과 프로그레시브 여부를 설정한 JPEG
+ * ImageIO가 쓸 수 없는 원본 형식(bmp 일부, webp 등)도 항상 JPEG/PNG로 저장된다.
+ */
+@Component
+public class ThumbnailEncoder {
+
+    public static final String JPEG = MediaType.IMAGE_JPEG_VALUE;
+    public static final String PNG = MediaType.IMAGE_PNG_VALUE;
+
+    private final float jpegQuality;
+    private final boolean progressive;
+    private final int paletteMaxColors;
+
+    public ThumbnailEncoder(@Value("${photoalbum.thumbnail.encoder.jpeg-quality:0.82}") float jpegQuality,
+                            @Value("${photoalbum.thumbnail.encoder.progressive:true}") boolean progressive,
+                            @Value("${photoalbum.thumbnail.encoder.palette-max-colors:256}") int paletteMaxColors) {
+        this.jpegQuality = jpegQuality;
+        this.progressive = progressive;
+        this.paletteMaxColors = Math.min(256, paletteMaxColors);
+    }
+
+    /**
+     * 썸네일을 out에 쓰고 그 Content-Type을 돌려준다.
+     */
+    public String encode(BufferedImage image, OutputStream out) throws IOException {
+        Map<Integer, Integer> palette = palette(image);
+        if (palette != null) {
+            write(toIndexed(image, palette), writer("png"), null, out);
+            return PNG;
+        }
+        if (hasTranslucentPixel(image)) {
+            write(image, writer("png"), null, out);
+            return PNG;
+        }
+        ImageWriter jpeg = writer("jpeg");
+        write(toRgb(image), jpeg, jpegParam(jpeg), out);
+        return JPEG;
+    }
+
+    /**
+     * 저장된 썸네일의 앞부분(매직 넘버)으로 Content-Type을 알아낸다. 모르는 형식이면 null.
+     */
+    public static String detectContentType(byte[] header) {
+        if (header.length >= 3 && (header[0] & 0xff) == 0xff && (header[1] & 0xff) == 0xd8 && (header[2] & 0xff) == 0xff) {
+            return JPEG;
+        }
+        if (header.length >= 4 && (header[0] & 0xff) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return PNG;
+        }
+        if (header.length >= 4 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        return null;
+    }
+
+    // 서로 다른 색(ARGB)이 paletteMaxColors개 이하이면 색 → 팔레트 인덱스 표를, 넘으면 null을 돌려준다.
+    private Map<Integer, Integer> palette(BufferedImage image) {
+        Map<Integer, Integer> palette = new HashMap<>();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int argb = image.getRGB(x, y);
+                if (!palette.containsKey(argb)) {
+                    if (palette.size() == paletteMaxColors) {
+                        return null;
+                    }
+                    palette.put(argb, palette.size());
+                }
+            }
+        }
+        return palette;
+    }
+
+    private static BufferedImage toIndexed(BufferedImage image, Map<Integer, Integer> palette) {
+        int size = palette.size();
+        byte[] r = new byte[size];
+        byte[] g = new byte[size];
+        byte[] b = new byte[size];
+        byte[] a = new byte[size];
+        for (Map.Entry<Integer, Integer> entry : palette.entrySet()) {
+            int argb = entry.getKey();
+            int index = entry.getValue();
+            a[index] = (byte) (argb >>> 24);
+            r[index] = (byte) (argb >> 16);
+            g[index] = (byte) (argb >> 8);
+            b[index] = (byte) argb;
+        }
+        int bits = size <= 2 ? 1 : size <= 4 ? 2 : size <= 16 ? 4 : 8;
+        IndexColorModel model = new IndexColorModel(bits, size, r, g, b, a);
+        BufferedImage indexed = new BufferedImage(image.getWidth(), image.getHeight(),
+                bits == 8 ? BufferedImage.TYPE_BYTE_INDEXED : BufferedImage.TYPE_BYTE_BINARY, model);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                indexed.getRaster().setSample(x, y, 0, palette.get(image.getRGB(x, y)));
+            }
+        }
+        return indexed;
+    }
+
+    private static boolean hasTranslucentPixel(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return false;
+        }
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) >>> 24) != 0xff) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    private ImageWriteParam jpegParam(ImageWriter writer) {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        if (progressive) {
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+        }
+        return param;
+    }
+
+    private static void write(BufferedImage image, ImageWriter writer, ImageWriteParam param, OutputStream out) throws IOException {
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static ImageWriter writer(String format) {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IllegalStateException(format + " 인코더가 없습니다.");
+        }
+        return writers.next();
+    }
+}
@@ -0,0 +1,14 @@
+package com.squarecross.photoalbum.image;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 디코딩된 이미지를 긴 변이 targetSize가 되도록 비율을 유지해 줄인다.
+ * 구현마다 속도와 화질의 균형이 다르며, 어떤 구현을 쓸지는 ThumbnailRendererSelector가 고른다.
+ */
+public interface ThumbnailRenderer {
+
+    BufferedImage resize(BufferedImage source, int targetSize);
+
+    RenderTier getTier();
+}
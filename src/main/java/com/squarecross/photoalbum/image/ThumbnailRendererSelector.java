@@ -0,0 +1,50 @@
+package com.squarecross.photoalbum.image;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 썸네일/파생 이미지마다 어느 렌더러를 쓸지 정한다.
+ * - 업로드 썸네일: tier가 auto면 평소에는 quality, 렌더링 대기 작업이 fast-backlog를 넘으면 fast
+ * - 파생 이미지: fast-sizes에 있는 크기는 fast, 나머지는 quality
+ */
+@Component
+public class ThumbnailRendererSelector {
+
+    private final Map<RenderTier, ThumbnailRenderer> renderers = new EnumMap<>(RenderTier.class);
+    private final String thumbnailTier;
+    private final int fastBacklog;
+    private final Set<Integer> fastRenditionSizes;
+
+    public ThumbnailRendererSelector(List<ThumbnailRenderer> renderers,
+                                     @Value("${photoalbum.thumbnail.renderer.tier:auto}") String thumbnailTier,
+                                     @Value("${photoalbum.thumbnail.renderer.fast-backlog:100}") int fastBacklog,
+                                     @Value("${photoalbum.rendition.fast-sizes:}") int[] fastRenditionSizes) {
+        renderers.forEach(renderer -> this.renderers.put(renderer.getTier(), renderer));
+        this.thumbnailTier = thumbnailTier;
+        this.fastBacklog = fastBacklog;
+        this.fastRenditionSizes = Arrays.stream(fastRenditionSizes).boxed().collect(Collectors.toSet());
+    }
+
+    public ThumbnailRenderer forThumbnail(int backlog) {
+        switch (thumbnailTier) {
+            case "fast":
+                return renderers.get(RenderTier.FAST);
+            case "quality":
+                return renderers.get(RenderTier.QUALITY);
+            default:
+                return renderers.get(backlog > fastBacklog ? RenderTier.FAST : RenderTier.QUALITY);
+        }
+    }
+
+    public ThumbnailRenderer forRendition(int size) {
+        return renderers.get(fastRenditionSizes.contains(size) ? RenderTier.FAST : RenderTier.QUALITY);
+    }
+}
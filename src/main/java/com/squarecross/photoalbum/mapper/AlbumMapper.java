@@ -12,9 +12,20 @@ public class AlbumMapper {
         albumDto.setAlbumId(album.getAlbumId());
         albumDto.setAlbumName(album.getAlbumName());
         albumDto.setCreatedAt(album.getCreatedAt());
+        albumDto.setCount(album.getPhotoCount());
+        albumDto.setTotalBytes(album.getTotalBytes());
+        albumDto.setLastUploadedAt(album.getLastUploadedAt());
+        albumDto.setThumbUrls(album.getCoverPhotoIdList().stream()
+                .map(photoId -> thumbnailUrl(album.getAlbumId(), photoId))
+                .collect(Collectors.toList()));
         return albumDto;
     }
 
+    // 파일 시스템 경로 대신 썸네일 캐시를 거치는 서빙 엔드포인트 주소를 내려준다.
+    private static String thumbnailUrl(Long albumId, Long photoId) {
+        return "/albums/" + albumId + "/photos/" + photoId + "/thumb";
+    }
+
     public static Album convertToModel(AlbumDto albumDto){
         Album album = new Album();
         album.setAlbumId(albumDto.getAlbumId());
@@ -1,6 +1,7 @@
 package com.squarecross.photoalbum.mapper;
 
 import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.domain.ThumbStatus;
 import com.squarecross.photoalbum.dto.PhotoDto;
 
 import java.util.List;
@@ -15,6 +16,9 @@ public class PhotoMapper {
         photoDto.setFileSize(photo.getFileSize());
         photoDto.setOriginalUrl(photo.getOriginalUrl());
         photoDto.setThumbUrl(photo.getThumbUrl());
+        // 상태 컬럼이 생기기 전에 올라간 사진은 업로드 시점에 썸네일이 이미 만들어져 있다.
+        ThumbStatus thumbStatus = photo.getThumbStatus() != null ? photo.getThumbStatus() : ThumbStatus.READY;
+        photoDto.setThumbStatus(thumbStatus.name());
         photoDto.setUploadedAt(photo.getUploadedAt());
         return photoDto;
     }
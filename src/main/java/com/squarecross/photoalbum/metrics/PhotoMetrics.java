@@ -0,0 +1,61 @@
+package com.squarecross.photoalbum.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 업로드/썸네일 단계별 시간과 다운로드 전송량.
+ * 히스토그램(백분위) 설정은 application.yml의 management.metrics.distribution에서 "photoalbum" 접두어로 켠다.
+ */
+@Component
+public class PhotoMetrics {
+
+    // savePhoto 단계
+    public static final String ALLOCATE = "allocate";
+    public static final String STORE = "store";
+    public static final String INSERT = "insert";
+
+    // 썸네일 렌더링 단계 (업로드 응답 뒤 백그라운드에서 일어난다)
+    public static final String DECODE = "decode";
+    public static final String RESIZE = "resize";
+    public static final String ENCODE = "encode";
+    public static final String WRITE = "write";
+
+    private final MeterRegistry registry;
+    private final Counter zipBytes;
+    private final Counter zipEntries;
+    private final Counter fileBytes;
+
+    public PhotoMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.zipBytes = Counter.builder("photoalbum.download.bytes").baseUnit("bytes")
+                .tag("type", "zip").register(registry);
+        this.fileBytes = Counter.builder("photoalbum.download.bytes").baseUnit("bytes")
+                .tag("type", "file").register(registry);
+        this.zipEntries = Counter.builder("photoalbum.download.entries")
+                .description("ZIP에 담아 보낸 파일 수").register(registry);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void uploadStage(String stage, Timer.Sample sample) {
+        sample.stop(registry.timer("photoalbum.upload.stage", "stage", stage));
+    }
+
+    public void thumbnailStage(String stage, Timer.Sample sample) {
+        sample.stop(registry.timer("photoalbum.thumbnail.stage", "stage", stage));
+    }
+
+    public void zipEntrySent(long bytes) {
+        zipEntries.increment();
+        zipBytes.increment(bytes);
+    }
+
+    public void fileSent(long bytes) {
+        fileBytes.increment(bytes);
+    }
+}
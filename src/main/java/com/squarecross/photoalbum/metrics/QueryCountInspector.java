@@ -0,0 +1,27 @@
+package com.squarecross.photoalbum.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate가 실행하는 SQL 문 수를 스레드별로 센다.
+ * Hibernate가 직접 생성하는 객체라 빈이 아니므로 카운터는 정적 ThreadLocal에 둔다.
+ * 설정: spring.jpa.properties.hibernate.session_factory.statement_inspector
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static long count() {
+        return COUNT.get()[0];
+    }
+}
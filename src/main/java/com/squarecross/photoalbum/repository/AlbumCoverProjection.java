@@ -0,0 +1,16 @@
+package com.squarecross.photoalbum.repository;
+
+import java.util.Date;
+
+/**
+ * 앨범별 최신 사진 N장과 앨범 전체 사진 수를 한 행씩 담는 프로젝션. Photo 엔티티를 로딩하지 않는다.
+ */
+public interface AlbumCoverProjection {
+    Long getAlbumId();
+
+    Long getPhotoId();
+
+    Date getUploadedAt();
+
+    int getPhotoCount();
+}
@@ -2,9 +2,19 @@ package com.squarecross.photoalbum.repository;
 
 import com.squarecross.photoalbum.domain.Album;
 import com.squarecross.photoalbum.dto.AlbumDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,8 +23,52 @@ public interface AlbumRepository extends JpaRepository<Album, Long> {
 
     Optional<Album> findByAlbumName(String albumName);
 
+    // 집계 컬럼을 고칠 때 앨범 행을 잠근다. 2차 캐시를 거치지 않고 SELECT ... FOR UPDATE로 읽는다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Album a where a.albumId = :albumId")
+    Optional<Album> findByIdForUpdate(@Param("albumId") Long albumId);
+
+    @Query("select a from Album a where a.albumId > :afterId order by a.albumId asc")
+    List<Album> findBatchAfter(@Param("afterId") Long afterId, Pageable pageable);
+
     List<Album> findByAlbumNameContainingOrderByCreatedAtAsc(String keyword);
     List<Album> findByAlbumNameContainingOrderByCreatedAtDesc(String keyword);
     List<Album> findByAlbumNameContainingOrderByAlbumNameAsc(String keyword);
     List<Album> findByAlbumNameContainingOrderByAlbumNameDesc(String keyword);
+
+    // 키셋 페이지네이션: 커서(정렬 키, ID) 다음 행부터 읽는다. 커서가 null이면 첫 페이지.
+    // 키워드 검색은 SearchService가 색인으로 처리한다.
+    @Query("select a from Album a "
+            + "where (:cursorId is null or a.albumName > :cursorName or (a.albumName = :cursorName and a.albumId > :cursorId)) "
+            + "order by a.albumName asc, a.albumId asc")
+    List<Album> findPageByNameAsc(@Param("cursorName") String cursorName, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select a from Album a "
+            + "where (:cursorId is null or a.albumName < :cursorName or (a.albumName = :cursorName and a.albumId < :cursorId)) "
+            + "order by a.albumName desc, a.albumId desc")
+    List<Album> findPageByNameDesc(@Param("cursorName") String cursorName, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select a from Album a "
+            + "where (:cursorId is null or a.createdAt > :cursorDate or (a.createdAt = :cursorDate and a.albumId > :cursorId)) "
+            + "order by a.createdAt asc, a.albumId asc")
+    List<Album> findPageByDateAsc(@Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select a from Album a "
+            + "where (:cursorId is null or a.createdAt < :cursorDate or (a.createdAt = :cursorDate and a.albumId < :cursorId)) "
+            + "order by a.createdAt desc, a.albumId desc")
+    List<Album> findPageByDateDesc(@Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Album a set a.deleted = true where a.albumId = :albumId")
+    int softDeleteById(@Param("albumId") Long albumId);
+
+    @Query(value = "SELECT a.album_id FROM album a WHERE a.deleted = 1 LIMIT :limit", nativeQuery = true)
+    List<Long> findDeletedIds(@Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = PhotoRepository.NATIVE_SPACES, value = "photo_album.album"))
+    @Query(value = "DELETE FROM album WHERE album_id = :albumId AND deleted = 1", nativeQuery = true)
+    int purgeById(@Param("albumId") Long albumId);
 }
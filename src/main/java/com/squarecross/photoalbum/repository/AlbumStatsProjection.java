@@ -0,0 +1,16 @@
+package com.squarecross.photoalbum.repository;
+
+import java.util.Date;
+
+/**
+ * 앨범 하나의 사진 수, 총 바이트, 마지막 업로드 시각을 photo 테이블에서 바로 집계한 값.
+ */
+public interface AlbumStatsProjection {
+    Long getAlbumId();
+
+    long getPhotoCount();
+
+    long getTotalBytes();
+
+    Date getLastUploadedAt();
+}
@@ -0,0 +1,44 @@
+package com.squarecross.photoalbum.repository;
+
+import com.squarecross.photoalbum.domain.Blob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+@Repository
+public interface BlobRepository extends JpaRepository<Blob, String> {
+
+    // 처음 보는 내용이면 행을 만들고, 이미 있으면 참조 수만 올린다.
+    // 업로드마다 호출되므로 photo_blob만 건드린다고 알려 Album/Photo 캐시가 비워지지 않게 한다.
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = PhotoRepository.NATIVE_SPACES, value = "photo_album.photo_blob"))
+    @Query(value = "INSERT INTO photo_blob (hash, size, ref_count, created_at) VALUES (:hash, :size, :count, NOW()) "
+            + "ON DUPLICATE KEY UPDATE ref_count = ref_count + :count", nativeQuery = true)
+    int retain(@Param("hash") String hash, @Param("size") long size, @Param("count") int count);
+
+    @Transactional
+    @Modifying
+    @Query("update Blob b set b.refCount = b.refCount - :count where b.hash = :hash")
+    int release(@Param("hash") String hash, @Param("count") int count);
+
+    @Query(value = "SELECT b.hash FROM photo_blob b WHERE b.ref_count <= 0 LIMIT :limit", nativeQuery = true)
+    List<String> findUnreferenced(@Param("limit") int limit);
+
+    // 정리 직전에 행을 잠근다. 잠금을 기다리는 동안 다시 참조되었으면 빈 목록이 돌아온다.
+    @Query(value = "SELECT b.hash FROM photo_blob b WHERE b.hash = :hash AND b.ref_count <= 0 FOR UPDATE", nativeQuery = true)
+    List<String> lockUnreferenced(@Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = PhotoRepository.NATIVE_SPACES, value = "photo_album.photo_blob"))
+    @Query(value = "DELETE FROM photo_blob WHERE hash = :hash AND ref_count <= 0", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
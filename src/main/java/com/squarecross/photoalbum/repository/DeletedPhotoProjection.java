@@ -0,0 +1,11 @@
+package com.squarecross.photoalbum.repository;
+
+public interface DeletedPhotoProjection {
+    Long getPhotoId();
+
+    String getOriginalUrl();
+
+    String getThumbUrl();
+
+    String getChecksum();
+}
@@ -1,22 +1,108 @@
 package com.squarecross.photoalbum.repository;
 
 import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.domain.ThumbStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PhotoRepository extends JpaRepository<Photo, Long> {
+    // 네이티브 DML은 건드리는 테이블을 알려주지 않으면 Hibernate가 2차 캐시 전체를 비운다.
+    String NATIVE_SPACES = "org.hibernate.query.native.spaces";
+
     int countByAlbum_AlbumId(Long AlbumId);
 
-    List<Photo> findTop4ByAlbum_AlbumIdOrderByUploadedAtDesc(Long AlbumnId);
+    // 여러 앨범의 최신 사진 limit장과 사진 수를 윈도 함수로 한 번에 가져온다. 앨범 대표 사진 집계의 기준이 된다.
+    @Query(value = "SELECT ranked.album_id AS albumId, ranked.photo_id AS photoId, ranked.uploaded_at AS uploadedAt, "
+            + "ranked.photo_count AS photoCount "
+            + "FROM (SELECT p.album_id, p.photo_id, p.uploaded_at, "
+            + "ROW_NUMBER() OVER (PARTITION BY p.album_id ORDER BY p.uploaded_at DESC, p.photo_id DESC) AS rn, "
+            + "COUNT(*) OVER (PARTITION BY p.album_id) AS photo_count "
+            + "FROM photo p WHERE p.album_id IN (:albumIds) AND p.deleted = 0) ranked "
+            + "WHERE ranked.rn <= :limit ORDER BY ranked.album_id, ranked.rn", nativeQuery = true)
+    List<AlbumCoverProjection> findAlbumCovers(@Param("albumIds") Collection<Long> albumIds, @Param("limit") int limit);
+
+    // 앨범 집계 컬럼을 처음부터 다시 계산할 때 쓴다. 사진이 없는 앨범은 결과에 없다.
+    @Query("select p.album.albumId as albumId, count(p) as photoCount, coalesce(sum(p.fileSize), 0) as totalBytes, "
+            + "max(p.uploadedAt) as lastUploadedAt from Photo p where p.album.albumId in :albumIds group by p.album.albumId")
+    List<AlbumStatsProjection> summarizeAlbums(@Param("albumIds") Collection<Long> albumIds);
 
     Optional<Photo> findByFileNameAndAlbum_AlbumId(String photoName, Long albumId);
 
+    // prefix는 '!'로 LIKE 이스케이프된 값이어야 한다.
+    // 삭제 표시만 된 사진의 파일은 아직 디스크에 있으므로 그 이름도 사용 중으로 본다(네이티브 쿼리라 @Where가 붙지 않는다).
+    @Query(value = "SELECT p.file_name FROM photo p WHERE p.album_id = :albumId "
+            + "AND p.file_name LIKE CONCAT(:prefix, '%') ESCAPE '!'", nativeQuery = true)
+    List<String> findFileNamesByPrefix(@Param("albumId") Long albumId, @Param("prefix") String prefix);
+
     List<Photo> findByFileNameContainingOrderByUploadedAtDesc(String keyword);
     List<Photo> findByFileNameContainingOrderByUploadedAtAsc(String keyword);
     List<Photo> findByFileNameContainingOrderByFileNameDesc(String keyword);
     List<Photo> findByFileNameContainingOrderByFileNameAsc(String keyword);
+
+    // 키셋 페이지네이션: 커서(정렬 키, ID) 다음 행부터 읽는다. 커서가 null이면 첫 페이지.
+    // 키워드 검색은 SearchService가 색인으로 처리한다.
+    @Query("select p from Photo p "
+            + "where (:cursorId is null or p.fileName > :cursorName or (p.fileName = :cursorName and p.photoId > :cursorId)) "
+            + "order by p.fileName asc, p.photoId asc")
+    List<Photo> findPageByNameAsc(@Param("cursorName") String cursorName, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select p from Photo p "
+            + "where (:cursorId is null or p.fileName < :cursorName or (p.fileName = :cursorName and p.photoId < :cursorId)) "
+            + "order by p.fileName desc, p.photoId desc")
+    List<Photo> findPageByNameDesc(@Param("cursorName") String cursorName, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select p from Photo p "
+            + "where (:cursorId is null or p.uploadedAt > :cursorDate or (p.uploadedAt = :cursorDate and p.photoId > :cursorId)) "
+            + "order by p.uploadedAt asc, p.photoId asc")
+    List<Photo> findPageByDateAsc(@Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select p from Photo p "
+            + "where (:cursorId is null or p.uploadedAt < :cursorDate or (p.uploadedAt = :cursorDate and p.photoId < :cursorId)) "
+            + "order by p.uploadedAt desc, p.photoId desc")
+    List<Photo> findPageByDateDesc(@Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    List<Photo> findByThumbStatus(ThumbStatus thumbStatus);
+
+    @Query("select p.photoId from Photo p where p.album.albumId = :albumId")
+    List<Long> findIdsByAlbumId(@Param("albumId") Long albumId);
+
+    // 삭제는 표시만 하고 바로 돌아간다. 파일과 행은 StorageReclaimer가 백그라운드에서 지운다.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Photo p set p.deleted = true where p.photoId in :photoIds")
+    int softDeleteByIds(@Param("photoIds") Collection<Long> photoIds);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Photo p set p.deleted = true where p.album.albumId = :albumId")
+    int softDeleteByAlbumId(@Param("albumId") Long albumId);
+
+    // 앨범째 삭제된 사진은 앨범 디렉토리와 함께 지우므로 여기서는 낱장으로 삭제된 사진만 고른다.
+    @Query(value = "SELECT p.photo_id AS photoId, p.original_url AS originalUrl, p.thumb_url AS thumbUrl, p.checksum AS checksum "
+            + "FROM photo p LEFT JOIN album a ON a.album_id = p.album_id "
+            + "WHERE p.deleted = 1 AND (a.album_id IS NULL OR a.deleted = 0) LIMIT :limit", nativeQuery = true)
+    List<DeletedPhotoProjection> findDeletedPhotos(@Param("limit") int limit);
+
+    @Query(value = "SELECT p.photo_id AS photoId, p.original_url AS originalUrl, p.thumb_url AS thumbUrl, p.checksum AS checksum "
+            + "FROM photo p WHERE p.album_id = :albumId AND p.deleted = 1 LIMIT :limit", nativeQuery = true)
+    List<DeletedPhotoProjection> findDeletedByAlbumId(@Param("albumId") Long albumId, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "photo_album.photo"))
+    @Query(value = "DELETE FROM photo WHERE photo_id IN (:photoIds) AND deleted = 1", nativeQuery = true)
+    int purgeByIds(@Param("photoIds") Collection<Long> photoIds);
 }
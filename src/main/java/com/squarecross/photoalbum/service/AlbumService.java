@@ -1,24 +1,27 @@
 package com.squarecross.photoalbum.service;
 
-import com.squarecross.photoalbum.Constants;
 import com.squarecross.photoalbum.domain.Album;
 import com.squarecross.photoalbum.domain.Photo;
 import com.squarecross.photoalbum.dto.AlbumDto;
+import com.squarecross.photoalbum.dto.CursorPage;
+import com.squarecross.photoalbum.dto.PageCursor;
 import com.squarecross.photoalbum.mapper.AlbumMapper;
 import com.squarecross.photoalbum.repository.AlbumRepository;
 import com.squarecross.photoalbum.repository.PhotoRepository;
+import com.squarecross.photoalbum.storage.StorageBackend;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class AlbumService {
@@ -29,12 +32,26 @@ public class AlbumService {
     @Autowired
     private PhotoRepository photoRepository;
 
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Value("${photoalbum.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${photoalbum.page.max-size:500}")
+    private int maxPageSize;
+
     public AlbumDto getAlbum(Long albumId){
         Optional<Album> res = albumRepository.findById(albumId);
         if(res.isPresent()){
-            AlbumDto albumDto = AlbumMapper.convertToDto(res.get());
-            albumDto.setCount(photoRepository.countByAlbum_AlbumId(albumId));
-            return albumDto;
+            // 사진 수와 대표 사진은 앨범 행의 집계 컬럼에서 바로 읽는다.
+            return AlbumMapper.convertToDto(res.get());
         } else {
             throw new EntityNotFoundException("앨범 아이디 " + albumId + "로 조회되지 않았습니다.");
         }
@@ -57,32 +74,51 @@ public class AlbumService {
     }
 
     private void createAlbumDirectories(Album album) throws IOException {
-        Files.createDirectories(Paths.get(Constants.PATH_PREFIX + "/photos/original/" + album.getAlbumId()));
-        Files.createDirectories(Paths.get(Constants.PATH_PREFIX + "/photos/thumb/" + album.getAlbumId()));
+        // 새 원본은 해시 저장소에 들어가지만, 기존 사진을 이 앨범으로 옮길 때 앨범 디렉토리가 필요하다.
+        storage.createDirectory("/photos/original/" + album.getAlbumId());
+        storage.createDirectory("/photos/thumb/" + album.getAlbumId());
     }
 
-    public List<AlbumDto> getAlbumList(String keyword, String sort, String orderBy){
+    public CursorPage<AlbumDto> getAlbumList(String keyword, String sort, String orderBy, String cursor, Integer size){
+        int pageSize = pageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, pageSize + 1); // 한 건 더 읽어서 다음 페이지가 있는지 확인한다.
         List<Album> albums;
-        if(Objects.equals(sort, "byName") && Objects.equals(orderBy, "asc")){
-            albums = albumRepository.findByAlbumNameContainingOrderByAlbumNameAsc(keyword);
+        if (!(Objects.equals(sort, "byName") || Objects.equals(sort, "byDate"))
+                || !(Objects.equals(orderBy, "asc") || Objects.equals(orderBy, "desc"))) {
+            throw new IllegalArgumentException("알 수 없는 정렬 기준입니다.");
+        } else if (!keyword.isBlank()) {
+            albums = searchService.searchAlbums(keyword, sort, orderBy, after, pageSize + 1);
+        } else if(Objects.equals(sort, "byName") && Objects.equals(orderBy, "asc")){
+            albums = albumRepository.findPageByNameAsc(after.getKey(), after.getId(), limit);
         } else if (Objects.equals(sort, "byName") && Objects.equals(orderBy, "desc")) {
-            albums = albumRepository.findByAlbumNameContainingOrderByAlbumNameDesc(keyword);
+            albums = albumRepository.findPageByNameDesc(after.getKey(), after.getId(), limit);
         } else if (Objects.equals(sort, "byDate") && Objects.equals(orderBy, "asc")) {
-            albums = albumRepository.findByAlbumNameContainingOrderByCreatedAtAsc(keyword);
-        } else if (Objects.equals(sort, "byDate") && Objects.equals(orderBy, "desc")) {
-            albums = albumRepository.findByAlbumNameContainingOrderByCreatedAtDesc(keyword);
+            albums = albumRepository.findPageByDateAsc(after.getDateKey(), after.getId(), limit);
         } else {
-            throw new IllegalArgumentException("알 수 없는 정렬 기준입니다.");
+            albums = albumRepository.findPageByDateDesc(after.getDateKey(), after.getId(), limit);
         }
-        List<AlbumDto> albumDtos = AlbumMapper.convertToDtoList(albums);
 
-        for(AlbumDto albumDto : albumDtos){
-            List<Photo> top4 = photoRepository.findTop4ByAlbum_AlbumIdOrderByUploadedAtDesc(albumDto.getAlbumId());
-            albumDto.setThumbUrls(top4.stream().map(Photo::getThumbUrl).map(c -> Constants.PATH_PREFIX + c).collect(Collectors.toList()));
+        String nextCursor = null;
+        if (albums.size() > pageSize) {
+            albums = albums.subList(0, pageSize);
+            Album last = albums.get(pageSize - 1);
+            nextCursor = Objects.equals(sort, "byName")
+                    ? PageCursor.encode(last.getAlbumName(), last.getAlbumId())
+                    : PageCursor.encode(last.getCreatedAt(), last.getAlbumId());
         }
-        return albumDtos;
+        return new CursorPage<>(AlbumMapper.convertToDtoList(albums), nextCursor);
     }
 
+    private int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    // 분리된 엔티티를 save하면 그 사이 바뀐 집계 컬럼까지 덮어쓰므로 영속 상태에서 이름만 바꾼다.
+    @Transactional
     public AlbumDto changeName(Long AlbumId, AlbumDto albumDto) {
         Optional<Album> album = this.albumRepository.findById(AlbumId);
         if(album.isEmpty()){
@@ -95,9 +131,17 @@ public class AlbumService {
         return AlbumMapper.convertToDto(savedAlbum);
     }
 
+    // 앨범과 그 안의 사진 전체를 UPDATE 두 번으로 삭제 표시한다.
+    // 디렉토리와 행은 StorageReclaimer가 백그라운드에서 지우므로 사진 수와 관계없이 바로 돌아간다.
+    @Transactional
     public void deleteAlbum(Long albumId) throws IOException{
-        Files.delete(Paths.get(Constants.PATH_PREFIX + "/photos/original/" + albumId));
-        Files.delete(Paths.get(Constants.PATH_PREFIX + "/photos/thumb/" + albumId));
-        albumRepository.deleteById(albumId);
+        List<Long> photoIds = photoRepository.findIdsByAlbumId(albumId);
+        if (albumRepository.softDeleteById(albumId) == 0) {
+            throw new EntityNotFoundException("앨범 아이디 " + albumId + "로 조회되지 않았습니다.");
+        }
+        photoRepository.softDeleteByAlbumId(albumId);
+        searchService.purge(Album.class, List.of(albumId));
+        searchService.purge(Photo.class, photoIds);
+        photoIds.forEach(thumbnailService::evict);
     }
 }
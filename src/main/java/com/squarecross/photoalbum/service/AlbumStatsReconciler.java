@@ -0,0 +1,84 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.domain.Album;
+import com.squarecross.photoalbum.repository.AlbumCoverProjection;
+import com.squarecross.photoalbum.repository.AlbumRepository;
+import com.squarecross.photoalbum.repository.AlbumStatsProjection;
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 앨범 집계 컬럼을 photo 테이블과 주기적으로 맞춰 본다.
+ * batch-size개 앨범씩 집계 쿼리 두 번으로 비교하고, 어긋난 앨범만 AlbumStatsService가 잠근 뒤 다시 계산한다.
+ * 집계 컬럼이 생기기 전의 앨범도 첫 실행 때 채워진다.
+ */
+@Component
+public class AlbumStatsReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(AlbumStatsReconciler.class);
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private AlbumStatsService albumStatsService;
+
+    @Value("${photoalbum.album-stats.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${photoalbum.album-stats.reconcile-interval-ms:3600000}",
+            initialDelayString = "${photoalbum.album-stats.initial-delay-ms:60000}")
+    public void reconcile() {
+        long afterId = 0;
+        int repaired = 0;
+        List<Album> albums;
+        do {
+            albums = albumRepository.findBatchAfter(afterId, PageRequest.of(0, batchSize));
+            if (albums.isEmpty()) {
+                break;
+            }
+            List<Long> albumIds = albums.stream().map(Album::getAlbumId).collect(Collectors.toList());
+            Map<Long, AlbumStatsProjection> stats = photoRepository.summarizeAlbums(albumIds).stream()
+                    .collect(Collectors.toMap(AlbumStatsProjection::getAlbumId, Function.identity()));
+            Map<Long, List<AlbumCoverProjection>> covers = photoRepository
+                    .findAlbumCovers(albumIds, AlbumStatsService.COVER_COUNT).stream()
+                    .collect(Collectors.groupingBy(AlbumCoverProjection::getAlbumId));
+
+            for (Album album : albums) {
+                List<Long> coverIds = AlbumStatsService.coverIds(
+                        covers.getOrDefault(album.getAlbumId(), Collections.emptyList()));
+                if (AlbumStatsService.matches(album, stats.get(album.getAlbumId()), coverIds)) {
+                    continue;
+                }
+                try {
+                    // 읽은 뒤에 사진이 바뀌었을 수 있으므로 잠근 상태에서 다시 계산해 비교한다.
+                    if (albumStatsService.repair(album.getAlbumId())) {
+                        repaired++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("앨범 {} 집계 보정 실패", album.getAlbumId(), e);
+                }
+            }
+            afterId = albumIds.get(albumIds.size() - 1);
+        } while (albums.size() == batchSize);
+
+        if (repaired > 0) {
+            log.info("앨범 집계 {}건을 바로잡았습니다", repaired);
+        }
+    }
+}
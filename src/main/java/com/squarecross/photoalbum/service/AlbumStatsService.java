@@ -0,0 +1,143 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.domain.Album;
+import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.repository.AlbumCoverProjection;
+import com.squarecross.photoalbum.repository.AlbumRepository;
+import com.squarecross.photoalbum.repository.AlbumStatsProjection;
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 앨범 행의 집계 컬럼(사진 수, 총 바이트, 마지막 업로드 시각, 대표 사진)을 사진 변경과 같은 트랜잭션에서 고친다.
+ * 앨범 행을 SELECT ... FOR UPDATE로 잠근 뒤 증감하므로 같은 앨범에 동시에 올라오는 사진끼리 값을 덮어쓰지 않는다.
+ * 여러 앨범을 잠글 때는 ID 순서로 잠가 교착을 피한다.
+ */
+@Service
+public class AlbumStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlbumStatsService.class);
+
+    public static final int COVER_COUNT = 4;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    /**
+     * 새로 올린 사진 행을 넣고 앨범 집계를 올린다. 새 사진은 항상 가장 최신이므로 대표 사진 맨 앞에 둔다.
+     * 사진 행보다 앨범 행을 먼저 잠가, INSERT의 외래 키 검사가 잡는 공유 잠금과 엇갈리지 않게 한다.
+     */
+    @Transactional
+    public Photo insertPhoto(Photo photo) {
+        Album album = lockAlbum(photo.getAlbum().getAlbumId());
+        photo.setAlbum(album);
+        Photo saved = photoRepository.save(photo);
+
+        album.setPhotoCount(album.getPhotoCount() + 1);
+        album.setTotalBytes(album.getTotalBytes() + saved.getFileSize());
+        album.setLastUploadedAt(saved.getUploadedAt());
+        List<Long> covers = album.getCoverPhotoIdList();
+        covers.add(0, saved.getPhotoId());
+        album.setCoverPhotoIdList(covers.subList(0, Math.min(COVER_COUNT, covers.size())));
+        return saved;
+    }
+
+    /**
+     * 여러 앨범을 ID 순서로 잠근다. 사진 행을 고치기 전에 불러 두면 이후 photosAdded/photosRemoved는 이미 가진 잠금을 쓴다.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lock(Collection<Long> albumIds) {
+        albumIds.stream().distinct().sorted().forEach(this::lockAlbum);
+    }
+
+    // 사진 행을 옮기거나 복사해 넣은 뒤(flush 후) 부른다.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void photosAdded(Long albumId, List<Photo> photos) {
+        adjust(albumId, photos.size(), totalSize(photos));
+    }
+
+    // 사진 행을 옮기거나 삭제 표시한 뒤 부른다.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void photosRemoved(Long albumId, List<Photo> photos) {
+        adjust(albumId, -photos.size(), -totalSize(photos));
+    }
+
+    /**
+     * 집계를 photo 테이블에서 다시 계산해 다르면 고친다. 고쳤으면 true.
+     */
+    @Transactional
+    public boolean repair(Long albumId) {
+        Album album = lockAlbum(albumId);
+        AlbumStatsProjection stats = photoRepository.summarizeAlbums(List.of(albumId)).stream()
+                .findFirst().orElse(null);
+        List<Long> covers = coverIds(photoRepository.findAlbumCovers(List.of(albumId), COVER_COUNT));
+        if (matches(album, stats, covers)) {
+            return false;
+        }
+        log.warn("앨범 {} 집계가 어긋나 있었습니다: 사진 {}장/{}바이트 -> {}장/{}바이트", albumId,
+                album.getPhotoCount(), album.getTotalBytes(),
+                stats == null ? 0 : stats.getPhotoCount(), stats == null ? 0 : stats.getTotalBytes());
+        album.setPhotoCount(stats == null ? 0 : (int) stats.getPhotoCount());
+        album.setTotalBytes(stats == null ? 0 : stats.getTotalBytes());
+        album.setLastUploadedAt(stats == null ? null : stats.getLastUploadedAt());
+        album.setCoverPhotoIdList(covers);
+        return true;
+    }
+
+    /**
+     * 앨범 행의 집계가 photo 테이블에서 계산한 값과 같은지. stats가 null이면 사진이 없는 앨범이다.
+     */
+    static boolean matches(Album album, AlbumStatsProjection stats, List<Long> covers) {
+        if (stats == null) {
+            return album.getPhotoCount() == 0 && album.getTotalBytes() == 0
+                    && album.getLastUploadedAt() == null && covers.equals(album.getCoverPhotoIdList());
+        }
+        return album.getPhotoCount() == stats.getPhotoCount()
+                && album.getTotalBytes() == stats.getTotalBytes()
+                && sameTime(album.getLastUploadedAt(), stats.getLastUploadedAt())
+                && covers.equals(album.getCoverPhotoIdList());
+    }
+
+    static List<Long> coverIds(List<AlbumCoverProjection> rows) {
+        return rows.stream().map(AlbumCoverProjection::getPhotoId).collect(Collectors.toList());
+    }
+
+    private void adjust(Long albumId, int count, long bytes) {
+        Album album = lockAlbum(albumId);
+        album.setPhotoCount(album.getPhotoCount() + count);
+        album.setTotalBytes(album.getTotalBytes() + bytes);
+        // 옮기거나 지운 사진이 대표 사진이었는지는 업로드 시각을 비교해야 알 수 있으므로 최신 4장을 다시 읽는다.
+        List<AlbumCoverProjection> rows = photoRepository.findAlbumCovers(List.of(albumId), COVER_COUNT);
+        album.setCoverPhotoIdList(coverIds(rows));
+        album.setLastUploadedAt(rows.isEmpty() ? null : rows.get(0).getUploadedAt());
+    }
+
+    private Album lockAlbum(Long albumId) {
+        return albumRepository.findByIdForUpdate(albumId)
+                .orElseThrow(() -> new EntityNotFoundException("앨범이 존재하지 않습니다."));
+    }
+
+    private static long totalSize(List<Photo> photos) {
+        return photos.stream().mapToLong(Photo::getFileSize).sum();
+    }
+
+    // DB에서 읽은 Timestamp와 Date는 equals로 비교할 수 없다.
+    private static boolean sameTime(Date a, Date b) {
+        return a == null || b == null ? Objects.equals(a, b) : a.getTime() == b.getTime();
+    }
+}
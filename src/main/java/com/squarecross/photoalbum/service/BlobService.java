@@ -0,0 +1,142 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.repository.BlobRepository;
+import com.squarecross.photoalbum.storage.BlobStore;
+import com.squarecross.photoalbum.storage.IngestedFile;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import com.squarecross.photoalbum.storage.StoredBlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 내용 주소 저장소의 참조 수 관리.
+ * 파일을 두고 빼는 일은 photo_blob 행의 잠금 안에서 한다. 업로드는 retain(INSERT ... ON DUPLICATE KEY UPDATE)으로
+ * 행을 잠근 채 파일을 배치하고, 정리 작업은 SELECT ... FOR UPDATE로 같은 행을 잠근 뒤 파일을 지운다.
+ * 잠금이 DB에 있으므로 노드가 여럿이어도 업로드가 "이미 있음"으로 판단한 파일을 다른 노드의 정리 작업이 지우지 못한다.
+ */
+@Service
+public class BlobService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobService.class);
+
+    @Autowired
+    private BlobRepository blobRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 해시 하나씩 따로 커밋하고, 트랜잭션이 끝난 뒤(afterCompletion)에도 DB를 쓸 수 있도록 항상 새 트랜잭션을 연다.
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 스트림을 저장하고 참조를 하나 늘린다. 같은 내용이 이미 있으면 파일은 쓰지 않는다.
+     * 행 잠금은 트랜잭션이 끝날 때까지 유지되므로 바깥 트랜잭션(복사)에 참여하면 그 커밋까지 정리 작업이 기다린다.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public StoredBlob store(InputStream in) throws IOException {
+        IngestedFile staged = blobStore.stage(in);
+        String hash = staged.getChecksum();
+        boolean written;
+        try {
+            blobRepository.retain(hash, staged.getSize(), 1);
+            written = blobStore.place(staged);
+        } catch (IOException | RuntimeException e) {
+            // 참조 수 증가는 롤백으로 되돌아간다.
+            blobStore.discard(staged);
+            throw e;
+        }
+        return new StoredBlob(hash, staged.getSize(), BlobStore.blobUrl(hash), !written);
+    }
+
+    // 해시 저장소 도입 전에 앨범 디렉토리에 저장된 원본을 저장소로 가져온다.
+    @Transactional(rollbackFor = IOException.class)
+    public StoredBlob adopt(String url) throws IOException {
+        return store(storage.read(url));
+    }
+
+    // 이미 저장된 내용을 가리키는 사진 행을 하나 더 만들 때 (복사)
+    public void retain(String hash, long size) {
+        blobRepository.retain(hash, size, 1);
+    }
+
+    public void release(Collection<String> hashes) {
+        Map<String, Long> counts = hashes.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        counts.forEach((hash, count) -> blobRepository.release(hash, count.intValue()));
+    }
+
+    /**
+     * 롤백으로 행이 사라진 내용을 참조 0인 행으로 다시 등록해 collect가 파일을 지우게 한다.
+     * 그 사이 다른 업로드가 같은 내용으로 행을 만들었으면 참조 수는 그대로이고 파일도 남는다.
+     */
+    public void abandon(Collection<StoredBlob> blobs) {
+        for (StoredBlob blob : blobs) {
+            try {
+                newTransaction.executeWithoutResult(status -> blobRepository.retain(blob.getHash(), blob.getSize(), 0));
+            } catch (RuntimeException e) {
+                log.warn("롤백된 원본 {} 등록 실패", blob.getHash(), e);
+            }
+        }
+    }
+
+    /**
+     * 더 이상 참조되지 않는 내용을 최대 limit개 지운다. 지운 수를 돌려준다.
+     */
+    public int collect(int limit) {
+        List<String> hashes = blobRepository.findUnreferenced(limit);
+        int deleted = 0;
+        for (String hash : hashes) {
+            try {
+                if (Boolean.TRUE.equals(newTransaction.execute(status -> delete(hash)))) {
+                    deleted++;
+                }
+            } catch (UncheckedIOException e) {
+                log.warn("참조가 없는 원본 {} 삭제 실패", hash, e.getCause());
+            }
+        }
+        return deleted;
+    }
+
+    // 행을 잠근 채 파일을 먼저 지우고 행은 마지막에 지운다. 파일 삭제가 실패하면 롤백되어 행이 남고 다음 주기에 다시 시도한다.
+    private boolean delete(String hash) {
+        // 조회 뒤에 다시 참조되었으면 파일을 남겨 둔다.
+        if (blobRepository.lockUnreferenced(hash).isEmpty()) {
+            return false;
+        }
+        try {
+            blobStore.delete(hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        blobRepository.deleteIfUnreferenced(hash);
+        return true;
+    }
+}
@@ -0,0 +1,112 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 앨범 안에서 겹치지 않는 파일명("이름 (n).확장자")을 정한다.
+ * 같은 이름으로 시작하는 기존 파일명을 쿼리 한 번으로 모두 가져와 빈 번호를 메모리에서 찾고,
+ * 아직 DB에 저장되기 전인 이름은 예약해 두어 동시 업로드끼리 같은 이름을 고르지 않게 한다.
+ * 락은 앨범 ID로 나눈 스트라이프 단위라 서로 다른 앨범의 업로드는 병렬로 진행된다.
+ */
+@Component
+public class FileNameAllocator {
+
+    private static final int STRIPES = 64;
+    private static final char LIKE_ESCAPE = '!';
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    // 락 안에서 쿼리를 실행하므로 가상 스레드에서도 캐리어가 고정되지 않게 ReentrantLock을 쓴다.
+    private final Lock[] locks = new Lock[STRIPES];
+
+    // 앨범별로 할당했지만 아직 DB에 반영되지 않은 이름
+    private final Map<Long, Set<String>> reserved = new ConcurrentHashMap<>();
+
+    public FileNameAllocator() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 사용할 파일명을 예약하고 돌려준다. 사진을 저장(또는 실패)한 뒤에는 반드시 release를 호출해야 한다.
+     */
+    public String allocate(Long albumId, String fileName) {
+        String prefix = escapeLike(StringUtils.stripFilenameExtension(fileName));
+        Lock lock = lockFor(albumId);
+        lock.lock();
+        try {
+            List<String> existing = photoRepository.findFileNamesByPrefix(albumId, prefix);
+            Set<String> pending = reserved.computeIfAbsent(albumId, id -> new HashSet<>());
+            Set<String> taken = new HashSet<>(existing);
+            taken.addAll(pending);
+
+            String allocated = nextFreeName(fileName, taken);
+            pending.add(allocated);
+            return allocated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(Long albumId, String fileName) {
+        Lock lock = lockFor(albumId);
+        lock.lock();
+        try {
+            Set<String> pending = reserved.get(albumId);
+            if (pending != null) {
+                pending.remove(fileName);
+                if (pending.isEmpty()) {
+                    reserved.remove(albumId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static String nextFreeName(String fileName, Set<String> taken) {
+        if (!taken.contains(fileName)) {
+            return fileName;
+        }
+        String fileNameNoExt = StringUtils.stripFilenameExtension(fileName);
+        String ext = StringUtils.getFilenameExtension(fileName);
+        int count = 2;
+        String candidate;
+        do {
+            candidate = ext != null
+                    ? String.format("%s (%d).%s", fileNameNoExt, count, ext)
+                    : String.format("%s (%d)", fileNameNoExt, count);
+            count++;
+        } while (taken.contains(candidate));
+        return candidate;
+    }
+
+    // LIKE 패턴 문자(%, _)가 파일명에 있어도 접두어 그대로 비교되도록 이스케이프한다.
+    static String escapeLike(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                sb.append(LIKE_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private Lock lockFor(Long albumId) {
+        return locks[Math.floorMod(albumId.hashCode(), STRIPES)];
+    }
+}
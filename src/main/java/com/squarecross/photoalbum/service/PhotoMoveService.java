@@ -0,0 +1,283 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.domain.Album;
+import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.domain.ThumbStatus;
+import com.squarecross.photoalbum.dto.PhotoDto;
+import com.squarecross.photoalbum.mapper.PhotoMapper;
+import com.squarecross.photoalbum.repository.AlbumRepository;
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import com.squarecross.photoalbum.storage.BlobStore;
+import com.squarecross.photoalbum.storage.FileMove;
+import com.squarecross.photoalbum.storage.MoveJournal;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import com.squarecross.photoalbum.storage.StoredBlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 사진을 다른 앨범으로 옮기거나 복사한다.
+ * 파일은 StorageBackend.move로 옮긴다. 로컬 저장소는 같은 파일시스템 안에서 rename하고 장치가 다를 때만 복사한다.
+ * URL/앨범 변경은 한 트랜잭션에서 배치로 반영하며, 파일 이동은 저널에 남겨 중간에 죽어도 복구할 수 있게 한다.
+ */
+@Service
+public class PhotoMoveService {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoMoveService.class);
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private FileNameAllocator fileNameAllocator;
+
+    @Autowired
+    private MoveJournal moveJournal;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private AlbumStatsService albumStatsService;
+
+    @Transactional(rollbackFor = IOException.class)
+    public List<PhotoDto> movePhotos(Long fromAlbumId, Long toAlbumId, List<Long> photoIds) throws IOException {
+        // 앨범을 캐시에서 먼저 읽으면 잠근 뒤에도 오래된 집계를 고치게 되므로 잠금부터 잡는다.
+        albumStatsService.lock(List.of(fromAlbumId, toAlbumId));
+        Album toAlbum = albumRepository.findById(toAlbumId)
+                .orElseThrow(() -> new EntityNotFoundException("앨범이 존재하지 않습니다."));
+        List<Photo> photos = loadPhotos(fromAlbumId, photoIds);
+        List<String> allocated = releaseAfterCompletion(toAlbumId);
+
+        List<FileMove> moves = new ArrayList<>();
+        for (Photo photo : photos) {
+            String fileName = fileNameAllocator.allocate(toAlbumId, photo.getFileName());
+            allocated.add(fileName);
+            photo.setAlbum(toAlbum);
+            photo.setFileName(fileName);
+            // 해시 저장소의 원본은 앨범과 무관한 위치에 있으므로 행만 고치면 된다.
+            if (BlobStore.isBlobUrl(photo.getOriginalUrl())) {
+                continue;
+            }
+            String originalUrl = "/photos/original/" + toAlbumId + "/" + fileName;
+            String thumbUrl = "/photos/thumb/" + toAlbumId + "/" + fileName;
+
+            moves.add(new FileMove(photo.getPhotoId(), photo.getOriginalUrl(), originalUrl));
+            // 썸네일이 아직 만들어지지 않았으면 옮길 파일이 없다. 워커는 새 thumbUrl에 쓴다.
+            if (storage.exists(photo.getThumbUrl())) {
+                moves.add(new FileMove(photo.getPhotoId(), photo.getThumbUrl(), thumbUrl));
+            }
+
+            photo.setOriginalUrl(originalUrl);
+            photo.setThumbUrl(thumbUrl);
+        }
+
+        // 해시 저장소 사진만 옮기면 움직일 파일이 없으므로 저널(파일 생성과 fsync)을 건너뛴다.
+        if (!moves.isEmpty()) {
+            moveFiles(moves);
+        }
+
+        // hibernate.jdbc.batch_size 설정으로 UPDATE 문이 배치로 묶여 나간다.
+        photoRepository.saveAll(photos);
+        photoRepository.flush();
+        albumStatsService.photosRemoved(fromAlbumId, photos);
+        albumStatsService.photosAdded(toAlbumId, photos);
+        return PhotoMapper.convertToDtoList(photos);
+    }
+
+    // 이동을 저널에 남기고 파일을 옮긴다. 트랜잭션이 롤백되면 옮긴 파일을 되돌린다.
+    private void moveFiles(List<FileMove> moves) throws IOException {
+        Path journal = moveJournal.begin(moves);
+        List<FileMove> done = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // 되돌리지 못한 파일이 있으면 저널을 남겨 다음 기동 때 recover()가 다시 되돌리게 한다.
+                if (status != STATUS_COMMITTED && !rollBack(done)) {
+                    log.error("사진 이동을 모두 되돌리지 못했습니다. 다음 기동 때 저널로 복구합니다: {}", journal);
+                    return;
+                }
+                try {
+                    moveJournal.complete(journal);
+                } catch (IOException e) {
+                    log.warn("이동 저널을 지우지 못했습니다. 다음 기동 때 정리됩니다: {}", journal, e);
+                }
+            }
+        });
+
+        for (FileMove move : moves) {
+            storage.move(move.getSourceUrl(), move.getTargetUrl());
+            done.add(move);
+        }
+    }
+
+    /**
+     * 사진을 다른 앨범에 복사한다. 원본과 썸네일은 해시 저장소의 같은 파일을 가리키고 참조 수만 늘어난다.
+     * 해시 저장소 도입 전에 저장된 사진은 원본을 저장소로 한 번 가져온 뒤 같은 방식으로 복사한다.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public List<PhotoDto> copyPhotos(Long fromAlbumId, Long toAlbumId, List<Long> photoIds) throws IOException {
+        albumStatsService.lock(List.of(toAlbumId));
+        Album toAlbum = albumRepository.findById(toAlbumId)
+                .orElseThrow(() -> new EntityNotFoundException("앨범이 존재하지 않습니다."));
+        List<Photo> photos = loadPhotos(fromAlbumId, photoIds);
+        List<String> allocated = releaseAfterCompletion(toAlbumId);
+
+        // 참조 수 증가는 이 트랜잭션에 함께 묶여 롤백되면 같이 되돌아간다.
+        // 되돌아가지 않는 것은 adopt가 새로 써 둔 파일뿐이므로 롤백되면 정리 대상으로 넘긴다.
+        List<StoredBlob> written = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    blobService.abandon(written);
+                }
+            }
+        });
+
+        List<Photo> copies = new ArrayList<>();
+        for (Photo photo : photos) {
+            String hash;
+            String originalUrl;
+            if (BlobStore.isBlobUrl(photo.getOriginalUrl())) {
+                hash = photo.getChecksum();
+                originalUrl = photo.getOriginalUrl();
+                blobService.retain(hash, photo.getFileSize());
+            } else {
+                StoredBlob blob = blobService.adopt(photo.getOriginalUrl());
+                hash = blob.getHash();
+                originalUrl = blob.getUrl();
+                if (!blob.isDuplicate()) {
+                    written.add(blob);
+                }
+            }
+
+            String fileName = fileNameAllocator.allocate(toAlbumId, photo.getFileName());
+            allocated.add(fileName);
+            String thumbUrl = BlobStore.thumbUrl(hash, null);
+            String thumbContentType = storage.exists(thumbUrl) ? thumbnailService.storedContentType(thumbUrl) : null;
+
+            Photo copy = new Photo();
+            copy.setAlbum(toAlbum);
+            copy.setFileName(fileName);
+            copy.setFileSize(photo.getFileSize());
+            copy.setChecksum(hash);
+            copy.setOriginalUrl(originalUrl);
+            copy.setThumbUrl(thumbUrl);
+            copy.setThumbStatus(thumbContentType != null ? ThumbStatus.READY : ThumbStatus.PENDING);
+            copy.setThumbContentType(thumbContentType);
+            copies.add(copy);
+        }
+        photoRepository.saveAll(copies);
+        photoRepository.flush();
+        albumStatsService.photosAdded(toAlbumId, copies);
+
+        // 썸네일이 없는 복사본은 커밋된 뒤에 워커가 행을 읽을 수 있을 때 렌더링을 맡긴다.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                copies.stream()
+                        .filter(copy -> copy.getThumbStatus() == ThumbStatus.PENDING)
+                        .forEach(copy -> thumbnailService.enqueue(copy.getPhotoId()));
+            }
+        });
+        return PhotoMapper.convertToDtoList(copies);
+    }
+
+    private List<Photo> loadPhotos(Long fromAlbumId, List<Long> photoIds) {
+        Map<Long, Photo> found = photoRepository.findAllById(photoIds).stream()
+                .collect(Collectors.toMap(Photo::getPhotoId, Function.identity()));
+
+        List<Photo> photos = new ArrayList<>();
+        for (Long photoId : photoIds) {
+            Photo photo = found.get(photoId);
+            if (photo == null) {
+                throw new EntityNotFoundException("사진을 ID " + photoId + "을 찾을 수 없습니다.");
+            }
+            if (!Objects.equals(photo.getAlbum().getAlbumId(), fromAlbumId)) {
+                throw new IllegalArgumentException("사진 ID " + photoId + "는 앨범 " + fromAlbumId + "에 없습니다.");
+            }
+            photos.add(photo);
+        }
+        return photos;
+    }
+
+    // 새 이름은 트랜잭션이 끝나 DB에서 보이게 된 뒤(또는 롤백된 뒤)에 예약을 푼다.
+    private List<String> releaseAfterCompletion(Long toAlbumId) {
+        List<String> allocated = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                allocated.forEach(fileName -> fileNameAllocator.release(toAlbumId, fileName));
+            }
+        });
+        return allocated;
+    }
+
+    /**
+     * 기동 시 남아 있는 저널을 정리한다. DB가 이미 새 위치를 가리키면 파일을 마저 옮기고(roll forward),
+     * 아니면 옮겨 놓은 파일을 원래 자리로 돌린다(roll back).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() throws IOException {
+        for (Path journal : moveJournal.pending()) {
+            for (FileMove move : moveJournal.read(journal)) {
+                Optional<Photo> photo = photoRepository.findById(move.getPhotoId());
+                boolean committed = photo.isPresent()
+                        && (move.getTargetUrl().equals(photo.get().getOriginalUrl())
+                        || move.getTargetUrl().equals(photo.get().getThumbUrl()));
+                String source = move.getSourceUrl();
+                String target = move.getTargetUrl();
+                if (committed && storage.exists(source) && !storage.exists(target)) {
+                    storage.move(source, target);
+                } else if (!committed && storage.exists(target) && !storage.exists(source)) {
+                    storage.move(target, source);
+                }
+            }
+            log.info("중단된 사진 이동을 복구했습니다: {}", journal);
+            moveJournal.complete(journal);
+        }
+    }
+
+    // 모두 되돌렸으면 true
+    private boolean rollBack(List<FileMove> done) {
+        boolean restored = true;
+        for (int i = done.size() - 1; i >= 0; i--) {
+            FileMove move = done.get(i);
+            try {
+                storage.move(move.getTargetUrl(), move.getSourceUrl());
+            } catch (IOException e) {
+                log.error("사진 이동을 되돌리지 못했습니다: {} -> {}", move.getTargetUrl(), move.getSourceUrl(), e);
+                restored = false;
+            }
+        }
+        return restored;
+    }
+}
@@ -1,47 +1,87 @@
 package com.squarecross.photoalbum.service;
 
-import com.squarecross.photoalbum.Constants;
 import com.squarecross.photoalbum.domain.Album;
 import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.domain.ThumbStatus;
 import com.squarecross.photoalbum.dto.AlbumDto;
+import com.squarecross.photoalbum.dto.CursorPage;
+import com.squarecross.photoalbum.dto.PageCursor;
 import com.squarecross.photoalbum.dto.PhotoDto;
 import com.squarecross.photoalbum.mapper.AlbumMapper;
 import com.squarecross.photoalbum.mapper.PhotoMapper;
+import com.squarecross.photoalbum.metrics.PhotoMetrics;
 import com.squarecross.photoalbum.repository.AlbumRepository;
 import com.squarecross.photoalbum.repository.PhotoRepository;
-import org.imgscalr.Scalr;
+import com.squarecross.photoalbum.storage.BlobStore;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import com.squarecross.photoalbum.storage.StoredBlob;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
 import javax.persistence.EntityNotFoundException;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 public class PhotoService {
 
-    private final String original_path = Constants.PATH_PREFIX + "/photos/original";
-    private final String thumb_path = Constants.PATH_PREFIX + "/photos/thumb";
     @Autowired
     private PhotoRepository photoRepository;
 
+    @Autowired
+    private AlbumStatsService albumStatsService;
+
     @Autowired
     private AlbumRepository albumRepository;
 
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private FileNameAllocator fileNameAllocator;
+
+    @Autowired
+    private PhotoMoveService photoMoveService;
+
+    @Autowired
+    private PhotoMetrics photoMetrics;
+
+    @Autowired
+    @Qualifier("uploadExecutor")
+    private Executor uploadExecutor;
+
+    @Value("${photoalbum.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${photoalbum.page.max-size:500}")
+    private int maxPageSize;
+
     public PhotoDto getPhoto(Long PhotoId) {
         Optional<Photo> photo = photoRepository.findById(PhotoId);
         if(photo.isPresent()) {
@@ -52,78 +92,108 @@ public class PhotoService {
         }
     }
 
-    public List<PhotoDto> getPhotoList(String keyword, String sort, String orderBy) {
+    // 요청한 ID 전체를 한 번의 쿼리로 조회하고, 요청 순서대로 돌려준다.
+    public List<PhotoDto> getPhotos(List<Long> photoIds) {
+        return PhotoMapper.convertToDtoList(loadPhotos(photoIds));
+    }
+
+    private List<Photo> loadPhotos(List<Long> photoIds) {
+        Map<Long, Photo> found = photoRepository.findAllById(photoIds).stream()
+                .collect(Collectors.toMap(Photo::getPhotoId, photo -> photo));
+        List<Photo> photos = new ArrayList<>();
+        for (Long photoId : photoIds) {
+            Photo photo = found.get(photoId);
+            if (photo == null) {
+                throw new EntityNotFoundException("사진을 ID " + photoId + "을 찾을 수 없습니다.");
+            }
+            photos.add(photo);
+        }
+        return photos;
+    }
+
+    public CursorPage<PhotoDto> getPhotoList(String keyword, String sort, String orderBy, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        PageCursor after = PageCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, pageSize + 1); // 한 건 더 읽어서 다음 페이지가 있는지 확인한다.
         List<Photo> photos;
-        if (Objects.equals(sort, "byDate")) {
+        if (!Objects.equals(sort, "byDate") && !Objects.equals(sort, "byName")) {
+            throw new EntityNotFoundException("알 수 없는 정렬 기준입니다.");
+        } else if (!keyword.isBlank()) {
+            photos = searchService.searchPhotos(keyword, sort, orderBy, after, pageSize + 1);
+        } else if (Objects.equals(sort, "byDate")) {
             if (Objects.equals(orderBy, "asc")) {
-                photos = photoRepository.findByFileNameContainingOrderByUploadedAtDesc(keyword);
+                photos = photoRepository.findPageByDateAsc(after.getDateKey(), after.getId(), limit);
             } else {
-                photos = photoRepository.findByFileNameContainingOrderByUploadedAtAsc(keyword);
+                photos = photoRepository.findPageByDateDesc(after.getDateKey(), after.getId(), limit);
             }
-        } else if (Objects.equals(sort, "byName")){
+        } else {
             if (Objects.equals(orderBy, "asc")) {
-                photos = photoRepository.findByFileNameContainingOrderByFileNameAsc(keyword);
+                photos = photoRepository.findPageByNameAsc(after.getKey(), after.getId(), limit);
             } else {
-                photos = photoRepository.findByFileNameContainingOrderByFileNameDesc(keyword);
+                photos = photoRepository.findPageByNameDesc(after.getKey(), after.getId(), limit);
             }
-        } else {
-            throw new EntityNotFoundException("알 수 없는 정렬 기준입니다.");
         }
 
-        List<PhotoDto> photoDtos = PhotoMapper.convertToDtoList(photos);
-        return photoDtos;
+        String nextCursor = null;
+        if (photos.size() > pageSize) {
+            photos = photos.subList(0, pageSize);
+            Photo last = photos.get(pageSize - 1);
+            nextCursor = Objects.equals(sort, "byName")
+                    ? PageCursor.encode(last.getFileName(), last.getPhotoId())
+                    : PageCursor.encode(last.getUploadedAt(), last.getPhotoId());
+        }
+        return new CursorPage<>(PhotoMapper.convertToDtoList(photos), nextCursor);
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
     }
 
     public List<PhotoDto> movePhotos(
             Long fromAlbumId, Long toAlbumId, List<Long> photoIds) throws IOException {
-        List<Photo> photos = new ArrayList<>();
-        for (Long photoId : photoIds) {
-            Optional<Photo> res = photoRepository.findById(photoId);
-            if (res.isPresent()) {
-                Photo photo = res.get();
-                File originalFile = new File(Constants.PATH_PREFIX + photo.getOriginalUrl());
-                File thumbFile = new File(Constants.PATH_PREFIX + photo.getThumbUrl());
-
-                String fileName = photo.getFileName();
-                fileName = getNextFileName(fileName, toAlbumId);
-                photo.setOriginalUrl("/photos/original/" + toAlbumId + "/" + fileName);
-                photo.setThumbUrl("/photos/thumb/" + toAlbumId + "/" + fileName);
-
-                File originalChangeFile = new File(Constants.PATH_PREFIX + photo.getOriginalUrl());
-                File thumbChangeFile = new File(Constants.PATH_PREFIX + photo.getThumbUrl());
-
-                Files.copy(originalFile.toPath(), originalChangeFile.toPath());
-                Files.copy(thumbFile.toPath(), thumbChangeFile.toPath());
-
-                deleteFiles(String.valueOf(originalFile.toPath()));
-                deleteFiles(String.valueOf(thumbFile.toPath()));
+        return photoMoveService.movePhotos(fromAlbumId, toAlbumId, photoIds);
+    }
 
-                photos.add(photo);
-            } else {
-                throw new EntityNotFoundException("에러");
-            }
-        }
-        return PhotoMapper.convertToDtoList(photos);
+    public List<PhotoDto> copyPhotos(
+            Long fromAlbumId, Long toAlbumId, List<Long> photoIds) throws IOException {
+        return photoMoveService.copyPhotos(fromAlbumId, toAlbumId, photoIds);
     }
 
-    private void deleteFiles(String url) throws IOException {
-        Files.delete(Path.of(url));
+    // 삭제 표시만 한 번의 UPDATE로 하고 바로 돌아간다. 파일과 행은 StorageReclaimer가 나중에 지운다.
+    @Transactional
+    public List<PhotoDto> deletePhotos(List<Long> photoIds) {
+        List<Photo> photos = loadPhotos(photoIds);
+        List<PhotoDto> photoDtos = PhotoMapper.convertToDtoList(photos);
+        Map<Long, List<Photo>> byAlbum = photos.stream()
+                .collect(Collectors.groupingBy(photo -> photo.getAlbum().getAlbumId()));
+        albumStatsService.lock(byAlbum.keySet());
+        photoRepository.softDeleteByIds(photoIds);
+        byAlbum.forEach(albumStatsService::photosRemoved);
+        searchService.purge(Photo.class, photoIds);
+        photoIds.forEach(thumbnailService::evict);
+        return photoDtos;
     }
 
-    public List<PhotoDto> deletePhotos(List<Long> photoIds) throws IOException {
-        List<Photo> photos = new ArrayList<>();
-        for (Long photoId : photoIds) {
-            Optional<Photo> res = photoRepository.findById(photoId);
-            if (res.isPresent()) {
-                Photo photo = res.get(); photos.add(photo);
-                deleteFiles(Constants.PATH_PREFIX + photo.getOriginalUrl());
-                deleteFiles(Constants.PATH_PREFIX + photo.getThumbUrl());
-                photoRepository.deleteById(photoId);
-            } else {
-                throw new EntityNotFoundException("에러");
-            }
+    public List<PhotoDto> savePhotos(MultipartFile[] files, Long albumId) {
+        // 파일마다 워커 풀에 맡기고, 결과는 요청한 파일 순서대로 모은다.
+        List<CompletableFuture<PhotoDto>> futures = new ArrayList<>();
+        for (MultipartFile file : files) {
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> savePhoto(file, albumId), uploadExecutor)
+                    .exceptionally(e -> failedPhoto(file, e)));
         }
-        return PhotoMapper.convertToDtoList(photos);
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private PhotoDto failedPhoto(MultipartFile file, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        PhotoDto photoDto = new PhotoDto();
+        photoDto.setFileName(file.getOriginalFilename());
+        photoDto.setErrorMessage(cause.getMessage());
+        return photoDto;
     }
 
     public PhotoDto savePhoto(MultipartFile file, Long albumId){
@@ -132,57 +202,54 @@ public class PhotoService {
             throw new EntityNotFoundException("앨범이 존재하지 않습니다.");
         }
 
-        String fileName = file.getOriginalFilename();
-        int fileSize = (int) file.getSize();
-        fileName = getNextFileName(fileName, albumId);
-        saveFile(file, albumId, fileName);
-
-        Photo photo = new Photo();
-        photo.setOriginalUrl("/photos/original/" + albumId + "/" + fileName);
-        photo.setThumbUrl("/photos/thumb/" + albumId + "/" + fileName);
-        photo.setFileName(fileName);
-        photo.setFileSize(fileSize);
-        photo.setAlbum(res.get());
-        Photo createdPhoto = photoRepository.save(photo);
-        return PhotoMapper.convertToDto(createdPhoto);
-    }
+        Timer.Sample allocate = photoMetrics.start();
+        String fileName = fileNameAllocator.allocate(albumId, file.getOriginalFilename());
+        photoMetrics.uploadStage(PhotoMetrics.ALLOCATE, allocate);
+        Photo createdPhoto;
+        boolean thumbReady;
+        try {
+            Timer.Sample store = photoMetrics.start();
+            StoredBlob blob = saveFile(file);
+            photoMetrics.uploadStage(PhotoMetrics.STORE, store);
+            // 썸네일 형식은 렌더링할 때 인코더가 고르므로 경로에 확장자를 붙이지 않는다.
+            String thumbUrl = BlobStore.thumbUrl(blob.getHash(), null);
+            // 같은 내용이 이미 있고 썸네일도 만들어져 있으면 쓰기와 렌더링을 모두 건너뛴다.
+            String thumbContentType = blob.isDuplicate() && storage.exists(thumbUrl)
+                    ? thumbnailService.storedContentType(thumbUrl) : null;
+            thumbReady = thumbContentType != null;
 
-    public File getImageFile(Long photoId) {
-        Optional<Photo> res = photoRepository.findById(photoId);
-        if(res.isEmpty()) {
-            throw new EntityNotFoundException("사진을 ID " + photoId + "을 찾을 수 없습니다.");
+            Photo photo = new Photo();
+            photo.setOriginalUrl(blob.getUrl());
+            photo.setThumbUrl(thumbUrl);
+            photo.setFileName(fileName);
+            photo.setFileSize((int) blob.getSize());
+            photo.setChecksum(blob.getHash());
+            photo.setThumbStatus(thumbReady ? ThumbStatus.READY : ThumbStatus.PENDING);
+            photo.setThumbContentType(thumbContentType);
+            photo.setAlbum(res.get());
+            Timer.Sample insert = photoMetrics.start();
+            try {
+                // 사진 행과 앨범 집계(사진 수, 대표 사진)를 한 트랜잭션에서 반영한다.
+                createdPhoto = albumStatsService.insertPhoto(photo);
+                photoMetrics.uploadStage(PhotoMetrics.INSERT, insert);
+            } catch (RuntimeException e) {
+                blobService.release(List.of(blob.getHash()));
+                throw e;
+            }
+        } finally {
+            // 행이 저장된 뒤에는 DB 조회로 이름이 보이므로 예약을 푼다.
+            fileNameAllocator.release(albumId, fileName);
         }
-        return new File(Constants.PATH_PREFIX + res.get().getOriginalUrl());
-    }
-
-    private String getNextFileName(String fileName, Long albumId) {
-        String fileNameNoExt = StringUtils.stripFilenameExtension(fileName);
-        String ext = StringUtils.getFilenameExtension(fileName);
-
-        Optional<Photo> res = photoRepository.findByFileNameAndAlbum_AlbumId(fileName, albumId);
-
-        int count = 2;
-        while(res.isPresent()) {
-            fileName = String.format("%s (%d).%s", fileNameNoExt, count, ext);
-            res = photoRepository.findByFileNameAndAlbum_AlbumId(fileName, albumId);
-            count++;
+        // 원본이 디스크에 저장되면 바로 응답하고, 썸네일은 백그라운드 워커가 만든다.
+        if (!thumbReady) {
+            thumbnailService.enqueue(createdPhoto.getPhotoId());
         }
-
-        return fileName;
+        return PhotoMapper.convertToDto(createdPhoto);
     }
 
-    private void saveFile(MultipartFile file, Long AlbumId, String fileName){
+    private StoredBlob saveFile(MultipartFile file){
         try {
-            String filePath = AlbumId + "/" + fileName;
-            Files.copy(file.getInputStream(), Paths.get(original_path + "/" + filePath));
-
-            BufferedImage thumbImg = Scalr.resize(ImageIO.read(file.getInputStream()), Constants.THUMB_SIZE, Constants.THUMB_SIZE);
-            File thumbFile = new File(thumb_path + "/" + filePath);
-            String ext = StringUtils.getFilenameExtension(fileName);
-            if (ext == null) {
-                throw new IllegalArgumentException("No Extention");
-            }
-            ImageIO.write(thumbImg, ext, thumbFile);
+            return blobService.store(file.getInputStream());
         } catch (Exception e) {
             throw new RuntimeException("Could not store the file. Error: " + e.getMessage());
         }
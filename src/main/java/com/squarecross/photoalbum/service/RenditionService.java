@@ -0,0 +1,182 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.Constants;
+import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.domain.ThumbStatus;
+import com.squarecross.photoalbum.image.Rendition;
+import com.squarecross.photoalbum.image.RenditionCache;
+import com.squarecross.photoalbum.image.ThumbnailDecoder;
+import com.squarecross.photoalbum.image.ThumbnailEncoder;
+import com.squarecross.photoalbum.image.ThumbnailRenderer;
+import com.squarecross.photoalbum.image.ThumbnailRendererSelector;
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityNotFoundException;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class RenditionService {
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private ThumbnailDecoder thumbnailDecoder;
+
+    @Autowired
+    private RenditionCache renditionCache;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private ThumbnailRendererSelector rendererSelector;
+
+    @Autowired
+    private ThumbnailEncoder thumbnailEncoder;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    // 인코더가 고른 형식을 캐시 파일의 확장자로 남겨 두고, 조회할 때 다시 Content-Type으로 바꾼다.
+    private static final Map<String, String> EXTENSIONS = Map.of(ThumbnailEncoder.JPEG, "jpg", ThumbnailEncoder.PNG, "png");
+
+    private final int[] sizes;
+
+    // 같은 파생 이미지를 동시에 요청하면 먼저 온 요청만 렌더링하고 나머지는 그 결과를 기다린다.
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public RenditionService(@Value("${photoalbum.rendition.sizes:150,300,800,1600}") int[] sizes) {
+        this.sizes = Arrays.stream(sizes).sorted().toArray();
+    }
+
+    /**
+     * 보낼 파일과 형식. 캐시 파일은 지워지지 않게 고정되어 있으므로 다 보낸 뒤 release해야 한다(RenditionResource).
+     */
+    public Rendition getRendition(Long photoId, int requestedSize) {
+        Optional<Photo> res = photoRepository.findById(photoId);
+        if (res.isEmpty()) {
+            throw new EntityNotFoundException("사진을 ID " + photoId + "을 찾을 수 없습니다.");
+        }
+        Photo photo = res.get();
+        int size = snapSize(requestedSize);
+
+        // 기본 썸네일과 같은 크기는 업로드 때 만든 썸네일을 그대로 쓴다. 원격 저장소면 아래에서 로컬 캐시에 만든다.
+        // 썸네일 경로에는 확장자가 없으므로 형식은 썸네일을 만들 때 기록한 Content-Type으로 정한다.
+        if (size == Constants.THUMB_SIZE && photo.getThumbStatus() != ThumbStatus.PENDING
+                && photo.getThumbStatus() != ThumbStatus.FAILED) {
+            Optional<Path> thumb = storage.localPath(photo.getThumbUrl());
+            if (thumb.isPresent()) {
+                String contentType = photo.getThumbContentType();
+                if (contentType == null) {
+                    contentType = thumbnailService.storedContentType(photo.getThumbUrl());
+                }
+                if (contentType != null) {
+                    return new Rendition(thumb.get().toFile(), contentType);
+                }
+            }
+        }
+
+        String key = keyPrefix(photoId) + size;
+        while (true) {
+            Rendition cached = lookup(key);
+            if (cached != null) {
+                return cached;
+            }
+
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                // 다 그린 뒤 캐시에서 다시 찾는다. 그사이 캐시에서 밀려났으면 직접 그린다.
+                running.join();
+                continue;
+            }
+            try {
+                // 앞선 렌더링이 lookup과 putIfAbsent 사이에 끝났을 수 있다.
+                Rendition rendition = lookup(key);
+                if (rendition == null) {
+                    rendition = render(photo, size, key);
+                }
+                mine.complete(null);
+                return rendition;
+            } catch (Exception e) {
+                mine.completeExceptionally(e);
+                throw new RuntimeException("파생 이미지를 만들 수 없습니다. Error: " + e.getMessage());
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+    }
+
+    // 인코더가 어떤 형식을 골랐는지 미리 알 수 없으므로 확장자마다 찾아본다.
+    private Rendition lookup(String key) {
+        for (Map.Entry<String, String> extension : EXTENSIONS.entrySet()) {
+            String fileKey = key + "." + extension.getValue();
+            Path path = renditionCache.acquire(fileKey);
+            if (path != null) {
+                return new Rendition(path.toFile(), extension.getKey(), () -> renditionCache.release(fileKey));
+            }
+        }
+        return null;
+    }
+
+    // 썸네일과 같은 인코더로 저장하므로 원본 형식(bmp, webp 등)과 관계없이 JPEG/PNG가 된다.
+    private Rendition render(Photo photo, int size, String key) throws IOException {
+        Path dir = renditionCache.resolve(key).getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, ".render-", ".tmp");
+        ThumbnailRenderer renderer = rendererSelector.forRendition(size);
+        String contentType;
+        String fileKey;
+        try {
+            contentType = thumbnailDecoder.decode(storage, photo.getOriginalUrl(), size, image -> {
+                // 원본이 더 작으면 확대하지 않는다.
+                BufferedImage resized = image.getWidth() <= size && image.getHeight() <= size
+                        ? image : renderer.resize(image, size);
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    return thumbnailEncoder.encode(resized, out);
+                }
+            });
+            fileKey = key + "." + EXTENSIONS.get(contentType);
+            Files.move(tmp, renditionCache.resolve(fileKey), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Path path = renditionCache.register(fileKey);
+        return new Rendition(path.toFile(), contentType, () -> renditionCache.release(fileKey));
+    }
+
+    // 삭제된 사진의 파생 이미지를 모두 지운다.
+    public void evict(Long photoId) {
+        renditionCache.removeByPrefix(keyPrefix(photoId));
+    }
+
+    private static String keyPrefix(Long photoId) {
+        return String.format("%02x/%d/", photoId & 0xff, photoId);
+    }
+
+    // 요청 크기 이상인 가장 작은 규격을 고르고, 모두 작으면 가장 큰 규격을 쓴다.
+    private int snapSize(int requestedSize) {
+        for (int size : sizes) {
+            if (size >= requestedSize) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+}
@@ -0,0 +1,205 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.domain.Album;
+import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.dto.PageCursor;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.hibernate.search.exception.EmptyQueryException;
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.FullTextQuery;
+import org.hibernate.search.jpa.Search;
+import org.hibernate.search.query.dsl.BooleanJunction;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.hibernate.search.query.dsl.sort.SortFieldContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 파일명/앨범명 키워드 검색. LIKE '%kw%' 테이블 스캔 대신 로컬 Lucene 색인을 조회하고,
+ * 결과도 (정렬 키, ID) 키셋 조건으로 잘라 목록 API와 같은 커서를 쓴다.
+ * 엔티티 저장/수정/삭제 시 색인은 Hibernate Search가 자동으로 갱신한다.
+ */
+@Service
+public class SearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${photoalbum.search.reindex-on-startup:false}")
+    private boolean reindexOnStartup;
+
+    @Transactional(readOnly = true)
+    public List<Photo> searchPhotos(String keyword, String sort, String orderBy, PageCursor after, int limit) {
+        return search(Photo.class, "fileName", "uploadedAt", keyword, sort, orderBy, after, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Album> searchAlbums(String keyword, String sort, String orderBy, PageCursor after, int limit) {
+        return search(Album.class, "albumName", "createdAt", keyword, sort, orderBy, after, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> search(Class<T> type, String nameField, String dateField, String keyword,
+                               String sort, String orderBy, PageCursor after, int limit) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+        QueryBuilder qb = fullTextEntityManager.getSearchFactory().buildQueryBuilder()
+                .forEntity(type)
+                .overridesForField(nameField + "_prefix", "nameQuery")
+                .get();
+
+        boolean byName = Objects.equals(sort, "byName");
+        boolean asc = Objects.equals(orderBy, "asc");
+        String sortField = byName ? nameField + "_sort" : dateField;
+
+        // 검색어는 색인 쪽 분석기와 같은 규칙(nameQuery)으로 단어를 나눈다.
+        Analyzer analyzer = fullTextEntityManager.getSearchFactory().getAnalyzer("nameQuery");
+        List<String> words = tokenize(analyzer, keyword);
+        if (words.isEmpty()) {
+            // 검색어가 분석 후 아무 단어도 남지 않는 경우 (예: 기호만 입력)
+            return Collections.emptyList();
+        }
+
+        Query query;
+        try {
+            BooleanJunction<?> junction = qb.bool().must(matchName(qb, nameField, keyword, words));
+            if (after.getId() != null) {
+                Object key = byName ? after.getKey() : after.getDateKey();
+                junction = junction.must(afterCursor(qb, sortField, key, after.getId(), asc));
+            }
+            query = junction.createQuery();
+        } catch (EmptyQueryException e) {
+            // 검색어가 분석 후 아무 토큰도 남지 않는 경우 (예: 기호만 입력)
+            return Collections.emptyList();
+        }
+
+        SortFieldContext sortContext = qb.sort().byField(sortField);
+        sortContext = asc ? sortContext.asc() : sortContext.desc();
+        sortContext = sortContext.andByField("id_sort");
+        Sort luceneSort = (asc ? sortContext.asc() : sortContext.desc()).createSort();
+
+        FullTextQuery fullTextQuery = fullTextEntityManager.createFullTextQuery(query, type);
+        fullTextQuery.setSort(luceneSort);
+        fullTextQuery.setMaxResults(limit);
+        return fullTextQuery.getResultList();
+    }
+
+    // 검색어의 모든 단어가 이름의 어떤 단어의 접두어(edge n-gram)이거나, 검색어 전체가 이름 중간에 있으면(n-gram 구문) 일치.
+    // keyword().matching()은 단어를 SHOULD로 묶어 한 단어만 맞아도 나오므로 단어마다 must를 건다.
+    private static Query matchName(QueryBuilder qb, String nameField, String keyword, List<String> words) {
+        BooleanJunction<?> allWords = qb.bool();
+        for (String word : words) {
+            allWords = allWords.must(qb.keyword().onField(nameField + "_prefix").ignoreAnalyzer()
+                    .matching(word).createQuery());
+        }
+        BooleanJunction<?> match = qb.bool().should(allWords.createQuery());
+        if (keyword.length() >= 2) {
+            match = match.should(qb.phrase().onField(nameField + "_ngram").sentence(keyword).createQuery());
+        }
+        return match.createQuery();
+    }
+
+    private static List<String> tokenize(Analyzer analyzer, String text) {
+        List<String> words = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream("", text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                words.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words;
+    }
+
+    // (정렬 키 > key) OR (정렬 키 = key AND ID > id). 내림차순이면 부등호가 반대다.
+    private static Query afterCursor(QueryBuilder qb, String sortField, Object key, Long id, boolean asc) {
+        Query beyondKey = asc
+                ? qb.range().onField(sortField).above(key).excludeLimit().createQuery()
+                : qb.range().onField(sortField).below(key).excludeLimit().createQuery();
+        Query sameKey = qb.range().onField(sortField).from(key).to(key).createQuery();
+        Query beyondId = asc
+                ? qb.range().onField("id_sort").above(id).excludeLimit().createQuery()
+                : qb.range().onField("id_sort").below(id).excludeLimit().createQuery();
+        return qb.bool()
+                .should(beyondKey)
+                .should(qb.bool().must(sameKey).must(beyondId).createQuery())
+                .createQuery();
+    }
+
+    // 벌크 UPDATE로 삭제 표시한 엔티티는 Hibernate Search가 알지 못하므로 직접 색인에서 뺀다.
+    // 현재 트랜잭션이 커밋될 때 반영된다.
+    public void purge(Class<?> type, Collection<? extends Serializable> ids) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+        for (Serializable id : ids) {
+            fullTextEntityManager.purge(type, id);
+        }
+    }
+
+    // 색인이 비어 있으면(첫 배포, 색인 디렉토리 유실) 기동 후 백그라운드에서 전체 재색인한다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindexIfNeeded() {
+        if (reindexOnStartup || isIndexEmpty()) {
+            Thread thread = new Thread(this::reindex, "search-reindex");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public void reindex() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            log.info("검색 색인 전체 재생성을 시작합니다.");
+            Search.getFullTextEntityManager(em)
+                    .createIndexer(Album.class, Photo.class)
+                    .batchSizeToLoadObjects(100)
+                    .threadsToLoadObjects(4)
+                    .startAndWait();
+            log.info("검색 색인 전체 재생성을 마쳤습니다.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            em.close();
+        }
+    }
+
+    private boolean isIndexEmpty() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(em);
+            QueryBuilder qb = fullTextEntityManager.getSearchFactory().buildQueryBuilder().forEntity(Album.class).get();
+            return fullTextEntityManager.createFullTextQuery(qb.all().createQuery(), Album.class, Photo.class)
+                    .getResultSize() == 0;
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.repository.AlbumRepository;
+import com.squarecross.photoalbum.repository.DeletedPhotoProjection;
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import com.squarecross.photoalbum.storage.BlobStore;
+import com.squarecross.photoalbum.storage.DeleteFailedException;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 삭제 표시된 앨범/사진의 파일과 행을 주기적으로 정리한다.
+ * 앨범은 디렉토리 트리를 지운 뒤(로컬 저장소는 병렬로) 사진 행을 batch-size씩 지우고 마지막에 앨범 행을 지운다.
+ * 낱장으로 삭제된 사진은 파일을 병렬로 지우고 같은 단위로 행을 지운다.
+ * 해시 저장소의 원본은 참조 수만 줄이고, 참조가 모두 사라진 내용은 마지막에 BlobService가 지운다.
+ */
+@Component
+public class StorageReclaimer {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageReclaimer.class);
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private RenditionService renditionService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private BlobService blobService;
+
+    @Value("${photoalbum.reclaim.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${photoalbum.reclaim.interval-ms:60000}",
+            initialDelayString = "${photoalbum.reclaim.interval-ms:60000}")
+    public void reclaim() {
+        reclaimAlbums();
+        reclaimPhotos();
+        int collected;
+        do {
+            collected = blobService.collect(batchSize);
+        } while (collected == batchSize);
+    }
+
+    private void reclaimAlbums() {
+        for (Long albumId : albumRepository.findDeletedIds(batchSize)) {
+            try {
+                long files = storage.deletePrefix("/photos/original/" + albumId + "/")
+                        + storage.deletePrefix("/photos/thumb/" + albumId + "/");
+                int rows = 0;
+                List<DeletedPhotoProjection> photos;
+                while (!(photos = photoRepository.findDeletedByAlbumId(albumId, batchSize)).isEmpty()) {
+                    rows += purge(photos);
+                }
+                albumRepository.purgeById(albumId);
+                log.info("삭제된 앨범 {} 정리: 파일 {}개, 사진 {}건", albumId, files, rows);
+            } catch (IOException | RuntimeException e) {
+                // 행을 남겨 두었으므로 다음 주기에 다시 시도한다.
+                log.warn("삭제된 앨범 {} 정리 실패", albumId, e);
+            }
+        }
+    }
+
+    private void reclaimPhotos() {
+        List<DeletedPhotoProjection> photos;
+        while (!(photos = photoRepository.findDeletedPhotos(batchSize)).isEmpty()) {
+            List<String> files = new ArrayList<>();
+            for (DeletedPhotoProjection photo : photos) {
+                if (!BlobStore.isBlobUrl(photo.getOriginalUrl())) {
+                    files.add(photo.getOriginalUrl());
+                    files.add(photo.getThumbUrl());
+                }
+            }
+            try {
+                storage.delete(files);
+            } catch (DeleteFailedException e) {
+                // 파일을 다 지운 사진의 행만 정리한다. 파일이 남은 사진은 행을 남겨 다음 주기에 다시 시도한다.
+                log.warn("삭제된 사진 파일 정리 실패: {}", e.getMessage());
+                Set<String> failed = e.getFailedKeys();
+                List<DeletedPhotoProjection> deleted = photos.stream()
+                        .filter(photo -> !failed.contains(photo.getOriginalUrl()) && !failed.contains(photo.getThumbUrl()))
+                        .collect(Collectors.toList());
+                if (!deleted.isEmpty()) {
+                    purge(deleted);
+                }
+                return;
+            } catch (IOException e) {
+                // 행을 남겨 두었으므로 다음 주기에 다시 시도한다.
+                log.warn("삭제된 사진 파일 정리 실패", e);
+                return;
+            }
+            purge(photos);
+        }
+    }
+
+    // 파생 이미지를 지우고 행을 지운 뒤 해시 저장소 참조를 돌려준다.
+    // 순서가 반대면 행 삭제가 실패해 다시 시도될 때 참조가 두 번 줄어든다.
+    private int purge(List<DeletedPhotoProjection> photos) {
+        List<String> hashes = new ArrayList<>();
+        for (DeletedPhotoProjection photo : photos) {
+            renditionService.evict(photo.getPhotoId());
+            if (BlobStore.isBlobUrl(photo.getOriginalUrl())) {
+                hashes.add(photo.getChecksum());
+            }
+        }
+        int rows = photoRepository.purgeByIds(photos.stream()
+                .map(DeletedPhotoProjection::getPhotoId)
+                .collect(Collectors.toList()));
+        blobService.release(hashes);
+        return rows;
+    }
+}
@@ -0,0 +1,189 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.Constants;
+import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.domain.ThumbStatus;
+import com.squarecross.photoalbum.image.CachedThumbnail;
+import com.squarecross.photoalbum.image.ThumbnailByteCache;
+import com.squarecross.photoalbum.image.ThumbnailDecoder;
+import com.squarecross.photoalbum.image.ThumbnailEncoder;
+import com.squarecross.photoalbum.image.ThumbnailRenderer;
+import com.squarecross.photoalbum.image.ThumbnailRendererSelector;
+import com.squarecross.photoalbum.metrics.PhotoMetrics;
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityNotFoundException;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class ThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private ThumbnailDecoder thumbnailDecoder;
+
+    @Autowired
+    private ThumbnailByteCache thumbnailByteCache;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private ThumbnailRendererSelector rendererSelector;
+
+    @Autowired
+    private ThumbnailEncoder thumbnailEncoder;
+
+    @Autowired
+    private ThumbnailStatusService thumbnailStatusService;
+
+    @Autowired
+    private PhotoMetrics photoMetrics;
+
+    @Autowired
+    @Qualifier("thumbnailExecutor")
+    private Executor thumbnailExecutor;
+
+    // 큐에 넣었지만 아직 끝나지 않은 렌더링 수. 많이 밀리면 빠른 렌더러로 바꾼다.
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    public CachedThumbnail getThumbnail(Long photoId) {
+        return thumbnailByteCache.get(photoId, this::loadThumbnail);
+    }
+
+    private CachedThumbnail loadThumbnail(Long photoId) {
+        Optional<Photo> res = photoRepository.findById(photoId);
+        if (res.isEmpty()) {
+            throw new EntityNotFoundException("사진을 ID " + photoId + "을 찾을 수 없습니다.");
+        }
+        Photo photo = res.get();
+        if (photo.getThumbStatus() == ThumbStatus.PENDING || photo.getThumbStatus() == ThumbStatus.FAILED) {
+            throw new EntityNotFoundException("Photo ID " + photoId + "의 썸네일이 준비되지 않았습니다.");
+        }
+        try (InputStream in = storage.read(photo.getThumbUrl())) {
+            byte[] bytes = in.readAllBytes();
+            String contentType = photo.getThumbContentType();
+            if (contentType == null) {
+                contentType = contentTypeOf(bytes, photo.getThumbUrl());
+            }
+            return thumbnailByteCache.create(bytes, contentType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 이미 저장된 썸네일의 Content-Type. 앞부분 몇 바이트만 읽어 형식을 알아낸다. 읽을 수 없으면 null.
+     */
+    public String storedContentType(String thumbUrl) {
+        try (InputStream in = storage.read(thumbUrl, 0, 8)) {
+            return contentTypeOf(in.readNBytes(8), thumbUrl);
+        } catch (IOException e) {
+            log.warn("썸네일 {} 형식 확인 실패: {}", thumbUrl, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String contentTypeOf(byte[] header, String thumbUrl) {
+        String detected = ThumbnailEncoder.detectContentType(header);
+        if (detected != null) {
+            return detected;
+        }
+        return MediaTypeFactory.getMediaType(thumbUrl).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    public void evict(Long photoId) {
+        thumbnailByteCache.invalidate(photoId);
+    }
+
+    public void enqueue(Long photoId) {
+        backlog.incrementAndGet();
+        thumbnailExecutor.execute(() -> {
+            try {
+                render(photoId);
+            } finally {
+                backlog.decrementAndGet();
+            }
+        });
+    }
+
+    // 서버가 내려가 처리하지 못한 작업은 PENDING으로 남아 있으므로 기동 시 다시 큐에 넣는다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        List<Photo> pending = photoRepository.findByThumbStatus(ThumbStatus.PENDING);
+        for (Photo photo : pending) {
+            enqueue(photo.getPhotoId());
+        }
+    }
+
+    private void render(Long photoId) {
+        Optional<Photo> res = photoRepository.findById(photoId);
+        if (res.isEmpty()) {
+            return;
+        }
+        Photo photo = res.get();
+        try {
+            // 썸네일 형식은 원본과 관계없이 인코더가 내용을 보고 고른다. 같은 내용의 사진끼리 이 파일을 공유한다.
+            String contentType;
+            if (storage.exists(photo.getThumbUrl())) {
+                // 같은 내용을 다른 사진이 먼저 렌더링했으면 다시 만들지 않는다.
+                contentType = storedContentType(photo.getThumbUrl());
+            } else {
+                Path tmp = storage.createTempFile();
+                ThumbnailRenderer renderer = rendererSelector.forThumbnail(backlog.get());
+                try {
+                    Timer.Sample decode = photoMetrics.start();
+                    contentType = thumbnailDecoder.decode(storage, photo.getOriginalUrl(), Constants.THUMB_SIZE, image -> {
+                        photoMetrics.thumbnailStage(PhotoMetrics.DECODE, decode);
+                        Timer.Sample resize = photoMetrics.start();
+                        BufferedImage thumbImg = renderer.resize(image, Constants.THUMB_SIZE);
+                        photoMetrics.thumbnailStage(PhotoMetrics.RESIZE, resize);
+                        Timer.Sample encode = photoMetrics.start();
+                        String encoded;
+                        try (OutputStream out = Files.newOutputStream(tmp)) {
+                            encoded = thumbnailEncoder.encode(thumbImg, out);
+                        }
+                        photoMetrics.thumbnailStage(PhotoMetrics.ENCODE, encode);
+                        return encoded;
+                    });
+                    // 다 쓴 파일만 썸네일 키에 보이도록 임시 파일을 통째로 옮긴다.
+                    Timer.Sample write = photoMetrics.start();
+                    storage.put(photo.getThumbUrl(), tmp);
+                    photoMetrics.thumbnailStage(PhotoMetrics.WRITE, write);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            thumbnailStatusService.markReady(photoId, contentType);
+            thumbnailByteCache.invalidate(photoId);
+        } catch (Exception e) {
+            log.warn("Photo ID {} 썸네일 생성 실패: {}", photoId, e.getMessage());
+            thumbnailStatusService.markFailed(photoId);
+        }
+    }
+}
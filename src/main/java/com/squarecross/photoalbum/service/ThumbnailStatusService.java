@@ -0,0 +1,34 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.domain.ThumbStatus;
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 썸네일 워커가 렌더링 결과를 사진 행에 기록한다.
+ * 벌크 UPDATE는 Photo 2차 캐시 영역 전체를 비우므로, 짧은 트랜잭션에서 엔티티를 읽어 고친다.
+ * 그러면 캐시에서도 그 사진 항목만 바뀐다. Photo는 @DynamicUpdate라 그 사이 이동된 사진의 앨범/경로를 덮어쓰지 않는다.
+ */
+@Service
+public class ThumbnailStatusService {
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Transactional
+    public void markReady(Long photoId, String contentType) {
+        // 렌더링하는 동안 삭제된 사진이면 고칠 행이 없다.
+        photoRepository.findById(photoId).ifPresent(photo -> {
+            photo.setThumbStatus(ThumbStatus.READY);
+            photo.setThumbContentType(contentType);
+        });
+    }
+
+    @Transactional
+    public void markFailed(Long photoId) {
+        photoRepository.findById(photoId).ifPresent(photo -> photo.setThumbStatus(ThumbStatus.FAILED));
+    }
+}
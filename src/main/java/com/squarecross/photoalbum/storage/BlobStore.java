@@ -0,0 +1,66 @@
+package com.squarecross.photoalbum.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * 원본을 SHA-256 값으로 저장하는 키 배치.
+ * 해시 앞 두 바이트로 두 단계 하위 경로를 만들어("/photos/blobs/ab/cd/abcd...") 한 디렉토리에 파일이 몰리지 않게 한다.
+ * 썸네일도 같은 규칙으로 "/photos/blob-thumbs/" 아래 해시와 확장자로 저장해 같은 내용끼리 공유한다.
+ */
+@Component
+public class BlobStore {
+
+    private static final String BLOB_PREFIX = "/photos/blobs/";
+    private static final String THUMB_PREFIX = "/photos/blob-thumbs/";
+
+    @Autowired
+    private PhotoIngestor photoIngestor;
+
+    @Autowired
+    private StorageBackend storage;
+
+    public static boolean isBlobUrl(String url) {
+        return url != null && url.startsWith(BLOB_PREFIX);
+    }
+
+    public static String blobUrl(String hash) {
+        return BLOB_PREFIX + shard(hash) + hash;
+    }
+
+    public static String thumbUrl(String hash, String ext) {
+        return THUMB_PREFIX + shard(hash) + hash + (ext != null ? "." + ext.toLowerCase() : "");
+    }
+
+    private static String shard(String hash) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/";
+    }
+
+    /**
+     * 스트림을 저장소가 정한 임시 파일에 쓰면서 해시를 계산한다. 로컬 저장소면 place에서 rename으로 끝난다.
+     */
+    public IngestedFile stage(InputStream in) throws IOException {
+        return photoIngestor.stageTo(in, storage.createTempFile());
+    }
+
+    /**
+     * 스테이징한 파일을 해시 위치로 옮긴다. 같은 내용이 이미 있으면 스테이징 파일을 버리고 false를 돌려준다.
+     */
+    public boolean place(IngestedFile staged) throws IOException {
+        return storage.putIfAbsent(blobUrl(staged.getChecksum()), staged.getPath());
+    }
+
+    public void discard(IngestedFile staged) throws IOException {
+        Files.deleteIfExists(staged.getPath());
+    }
+
+    // 원본과 이 내용으로 만든 모든 확장자의 썸네일을 지운다.
+    public void delete(String hash) throws IOException {
+        storage.delete(blobUrl(hash));
+        storage.deletePrefix(THUMB_PREFIX + shard(hash) + hash);
+    }
+}
@@ -0,0 +1,24 @@
+package com.squarecross.photoalbum.storage;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 일부 키를 지우지 못했을 때. 나머지는 지워졌으므로 getFailedKeys에 없는 키는 지워진 것으로 봐도 된다.
+ */
+public class DeleteFailedException extends IOException {
+
+    private final Set<String> failedKeys;
+
+    public DeleteFailedException(Collection<String> failedKeys) {
+        super(failedKeys.size() + "개 항목을 지우지 못했습니다: "
+                + failedKeys.stream().limit(10).collect(Collectors.joining(", ")));
+        this.failedKeys = Set.copyOf(failedKeys);
+    }
+
+    public Set<String> getFailedKeys() {
+        return failedKeys;
+    }
+}
@@ -0,0 +1,25 @@
+package com.squarecross.photoalbum.storage;
+
+public class FileMove {
+    private final Long photoId;
+    private final String sourceUrl;
+    private final String targetUrl;
+
+    public FileMove(Long photoId, String sourceUrl, String targetUrl) {
+        this.photoId = photoId;
+        this.sourceUrl = sourceUrl;
+        this.targetUrl = targetUrl;
+    }
+
+    public Long getPhotoId() {
+        return photoId;
+    }
+
+    public String getSourceUrl() {
+        return sourceUrl;
+    }
+
+    public String getTargetUrl() {
+        return targetUrl;
+    }
+}
@@ -0,0 +1,27 @@
+package com.squarecross.photoalbum.storage;
+
+import java.nio.file.Path;
+
+public class IngestedFile {
+    private final Path path;
+    private final long size;
+    private final String checksum;
+
+    public IngestedFile(Path path, long size, String checksum) {
+        this.path = path;
+        this.size = size;
+        this.checksum = checksum;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+}
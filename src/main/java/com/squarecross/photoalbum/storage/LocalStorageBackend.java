@@ -0,0 +1,229 @@
+package com.squarecross.photoalbum.storage;
+
+import com.squarecross.photoalbum.Constants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 로컬(또는 NFS 등으로 마운트한) 디스크 저장소. 키를 root 아래 상대 경로로 그대로 쓴다.
+ * 원본은 BlobStore가 해시 앞자리로 나눈 키를 쓰므로 한 디렉토리에 파일이 몰리지 않는다.
+ */
+@Component
+@ConditionalOnProperty(name = "photoalbum.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+    private final Path staging;
+    private final ParallelDeleter parallelDeleter;
+
+    public LocalStorageBackend(@Value("${photoalbum.storage.local.root:}") String root,
+                               ParallelDeleter parallelDeleter) {
+        // resolve가 정규화한 경로와 비교하므로 root도 절대 경로로 정규화해 둔다.
+        this.root = Paths.get(root.isEmpty() ? Constants.PATH_PREFIX : root).toAbsolutePath().normalize();
+        this.staging = this.root.resolve("photos/staging");
+        this.parallelDeleter = parallelDeleter;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(staging);
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream read(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(offset);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        Path path = resolve(key);
+        return new StoredObject(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public void write(String key, InputStream in) throws IOException {
+        Path tmp = createTempFile();
+        try (InputStream source = in; OutputStream out = Files.newOutputStream(tmp)) {
+            source.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        put(key, tmp);
+    }
+
+    @Override
+    public void put(String key, Path file) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            moveFile(file, target, true);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, Path file) throws IOException {
+        Path target = resolve(key);
+        try {
+            if (Files.exists(target)) {
+                return false;
+            }
+            Files.createDirectories(target.getParent());
+            moveFile(file, target, false);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(staging, ".upload-", ".tmp");
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        Path target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+        moveFile(resolve(sourceKey), target, false);
+    }
+
+    @Override
+    public void delete(Collection<String> keys) throws DeleteFailedException {
+        Map<String, String> requested = new HashMap<>();
+        for (String key : keys) {
+            requested.put(resolve(key).toString(), key);
+        }
+        try {
+            parallelDeleter.deleteFiles(requested.keySet().stream().map(Paths::get).collect(Collectors.toList()));
+        } catch (DeleteFailedException e) {
+            throw new DeleteFailedException(e.getFailedKeys().stream()
+                    .map(path -> requested.getOrDefault(path, path))
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Override
+    public long deletePrefix(String prefix) throws IOException {
+        Path path = resolve(prefix);
+        if (prefix.endsWith("/") || Files.isDirectory(path)) {
+            try {
+                return parallelDeleter.deleteTree(path);
+            } catch (DeleteFailedException e) {
+                throw toKeys(e);
+            }
+        }
+        // 디렉토리가 아닌 이름 접두어: 같은 디렉토리에서 그 이름으로 시작하는 항목만 지운다.
+        Path parent = path.getParent();
+        if (!Files.isDirectory(parent)) {
+            return 0;
+        }
+        String name = path.getFileName().toString();
+        List<Path> files = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        long deleted = 0;
+        try (Stream<Path> list = Files.list(parent)) {
+            for (Path child : (Iterable<Path>) list::iterator) {
+                if (!child.getFileName().toString().startsWith(name)) {
+                    continue;
+                }
+                if (Files.isDirectory(child)) {
+                    try {
+                        deleted += parallelDeleter.deleteTree(child);
+                    } catch (DeleteFailedException e) {
+                        failed.addAll(e.getFailedKeys());
+                    }
+                } else {
+                    files.add(child);
+                }
+            }
+        }
+        try {
+            deleted += parallelDeleter.deleteFiles(files);
+        } catch (DeleteFailedException e) {
+            failed.addAll(e.getFailedKeys());
+        }
+        if (!failed.isEmpty()) {
+            throw toKeys(new DeleteFailedException(failed));
+        }
+        return deleted;
+    }
+
+    @Override
+    public void createDirectory(String prefix) throws IOException {
+        Files.createDirectories(resolve(prefix));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    // ParallelDeleter는 경로로 알려주므로 호출한 쪽이 넘긴 키 모양("/photos/...")으로 바꾼다.
+    private DeleteFailedException toKeys(DeleteFailedException e) {
+        return new DeleteFailedException(e.getFailedKeys().stream()
+                .map(path -> "/" + root.relativize(Paths.get(path)).toString().replace('\\', '/'))
+                .collect(Collectors.toList()));
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key.startsWith("/") ? key.substring(1) : key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("저장소 밖을 가리키는 키입니다: " + key);
+        }
+        return path;
+    }
+
+    // 같은 파일시스템이면 rename이고, 장치가 다르면 JDK가 복사 후 삭제로 처리한다.
+    private static void moveFile(Path source, Path target, boolean replace) throws IOException {
+        if (!replace) {
+            // 대상이 있으면 FileAlreadyExistsException. ATOMIC_MOVE는 대상을 덮어쓸 수 있어 쓰지 않는다.
+            Files.move(source, target);
+            return;
+        }
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.squarecross.photoalbum.storage;
+
+import com.squarecross.photoalbum.Constants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 사진 이동 중 서버가 죽어도 파일과 DB를 맞출 수 있도록, 파일을 옮기기 전에 이동 목록을 디스크에 기록(fsync)해 둔다.
+ * 트랜잭션이 끝나면 지우고, 기동 시 남아 있는 저널은 DB 상태를 보고 앞으로(커밋됨) 또는 뒤로(롤백됨) 복구한다.
+ */
+@Component
+public class MoveJournal {
+
+    private final Path dir;
+
+    public MoveJournal(@Value("${photoalbum.storage.journal-dir:}") String journalDir) {
+        this.dir = Paths.get(journalDir.isEmpty() ? Constants.PATH_PREFIX + "/photos/journal" : journalDir);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(dir);
+    }
+
+    public Path begin(List<FileMove> moves) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (FileMove move : moves) {
+            sb.append(move.getPhotoId()).append('\t')
+                    .append(encode(move.getSourceUrl())).append('\t')
+                    .append(encode(move.getTargetUrl())).append('\n');
+        }
+        Path journal = dir.resolve("move-" + UUID.randomUUID() + ".journal");
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        return journal;
+    }
+
+    public void complete(Path journal) throws IOException {
+        Files.deleteIfExists(journal);
+    }
+
+    public List<Path> pending() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public List<FileMove> read(Path journal) throws IOException {
+        List<FileMove> moves = new ArrayList<>();
+        for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            // 기록 도중 죽어 잘린 마지막 줄은 건너뛴다. 그 이동은 아직 시작되지 않았다.
+            if (fields.length == 3) {
+                moves.add(new FileMove(Long.valueOf(fields[0]), decode(fields[1]), decode(fields[2])));
+            }
+        }
+        return moves;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,148 @@
+package com.squarecross.photoalbum.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 파일/디렉토리 트리를 ForkJoinPool로 나눠 병렬로 지운다.
+ * 하위 디렉토리마다, 그리고 파일은 일정 개수씩 묶어 작업을 쪼갠다.
+ * 한 파일을 지우지 못해도 나머지는 계속 지우고, 끝난 뒤 지우지 못한 경로를 DeleteFailedException으로 알린다.
+ */
+@Component
+public class ParallelDeleter {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelDeleter.class);
+    private static final int FILES_PER_TASK = 256;
+
+    private final ForkJoinPool pool;
+
+    public ParallelDeleter(@Value("${photoalbum.reclaim.threads:4}") int threads) {
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * root 아래를 모두 지우고 root도 지운다. 지운 파일 수를 돌려준다. root가 없으면 0.
+     */
+    public long deleteTree(Path root) throws DeleteFailedException {
+        if (!Files.exists(root)) {
+            return 0;
+        }
+        Queue<Path> failed = new ConcurrentLinkedQueue<>();
+        long deleted = pool.invoke(new TreeTask(root, failed));
+        throwIfFailed(failed);
+        return deleted;
+    }
+
+    public long deleteFiles(List<Path> files) throws DeleteFailedException {
+        Queue<Path> failed = new ConcurrentLinkedQueue<>();
+        long deleted = pool.invoke(new FilesTask(files, failed));
+        throwIfFailed(failed);
+        return deleted;
+    }
+
+    private static void throwIfFailed(Queue<Path> failed) throws DeleteFailedException {
+        if (!failed.isEmpty()) {
+            throw new DeleteFailedException(failed.stream().map(Path::toString).collect(Collectors.toList()));
+        }
+    }
+
+    private static final class TreeTask extends RecursiveTask<Long> {
+        private final Path dir;
+        private final Queue<Path> failed;
+
+        TreeTask(Path dir, Queue<Path> failed) {
+            this.dir = dir;
+            this.failed = failed;
+        }
+
+        @Override
+        protected Long compute() {
+            List<Path> children;
+            try (Stream<Path> list = Files.list(dir)) {
+                children = list.collect(Collectors.toList());
+            } catch (IOException e) {
+                // 목록을 읽지 못한 디렉토리만 실패로 남기고 다른 디렉토리는 계속 지운다.
+                log.warn("디렉토리 목록 읽기 실패: {}", dir, e);
+                failed.add(dir);
+                return 0L;
+            }
+            List<RecursiveTask<Long>> tasks = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            for (Path child : children) {
+                // 심볼릭 링크는 따라가지 않고 링크 자체만 지운다. 따라가면 저장소 밖의 파일을 지울 수 있다.
+                if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    tasks.add(new TreeTask(child, failed));
+                } else {
+                    files.add(child);
+                }
+            }
+            for (int i = 0; i < files.size(); i += FILES_PER_TASK) {
+                tasks.add(new FilesTask(files.subList(i, Math.min(i + FILES_PER_TASK, files.size())), failed));
+            }
+            long deleted = invokeAll(tasks).stream().mapToLong(RecursiveTask::join).sum();
+            try {
+                Files.deleteIfExists(dir);
+            } catch (IOException e) {
+                // 안에 지우지 못한 파일이 남았으면 디렉토리도 남는다.
+                log.warn("디렉토리 삭제 실패: {}", dir, e);
+                failed.add(dir);
+            }
+            return deleted;
+        }
+    }
+
+    private static final class FilesTask extends RecursiveTask<Long> {
+        private final List<Path> files;
+        private final Queue<Path> failed;
+
+        FilesTask(List<Path> files, Queue<Path> failed) {
+            this.files = files;
+            this.failed = failed;
+        }
+
+        @Override
+        protected Long compute() {
+            if (files.size() > FILES_PER_TASK) {
+                int mid = files.size() / 2;
+                FilesTask left = new FilesTask(files.subList(0, mid), failed);
+                left.fork();
+                long right = new FilesTask(files.subList(mid, files.size()), failed).compute();
+                return left.join() + right;
+            }
+            long deleted = 0;
+            for (Path file : files) {
+                try {
+                    if (Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    // 한 파일 때문에 나머지 정리를 멈추지 않는다.
+                    log.warn("파일 삭제 실패: {}", file, e);
+                    failed.add(file);
+                }
+            }
+            return deleted;
+        }
+    }
+}
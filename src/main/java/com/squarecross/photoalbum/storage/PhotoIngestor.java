@@ -0,0 +1,84 @@
+package com.squarecross.photoalbum.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 업로드 스트림을 한 번만 읽으면서 원본 저장, 크기 계산, SHA-256 체크섬 계산을 같이 처리한다.
+ * 고정 크기 버퍼로만 복사하므로 큰 파일도 힙에 통째로 올라가지 않고,
+ * 썸네일 디코더는 이 단계에서 디스크에 기록된 원본을 읽는다.
+ */
+@Component
+public class PhotoIngestor {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public IngestedFile ingest(InputStream in, Path target) throws IOException {
+        if (Files.exists(target)) {
+            throw new FileAlreadyExistsException(target.toString());
+        }
+        // 다 쓰기 전에는 원본 경로에 보이지 않도록 같은 디렉토리의 임시 파일에 먼저 쓴다.
+        IngestedFile staged = stage(in, target.getParent());
+        try {
+            Files.move(staged.getPath(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(staged.getPath());
+            throw e;
+        }
+        return new IngestedFile(target, staged.getSize(), staged.getChecksum());
+    }
+
+    /**
+     * dir 안의 임시 파일에 스트림을 쓰고 그 경로와 크기, 체크섬을 돌려준다. 옮기거나 지우는 것은 호출한 쪽의 몫이다.
+     */
+    public IngestedFile stage(InputStream in, Path dir) throws IOException {
+        return stageTo(in, Files.createTempFile(dir, ".ingest-", ".tmp"));
+    }
+
+    /**
+     * 미리 만들어 둔 임시 파일 tmp에 스트림을 쓴다. 실패하면 tmp를 지운다.
+     */
+    public IngestedFile stageTo(InputStream in, Path tmp) throws IOException {
+        MessageDigest digest = newDigest();
+        long size = 0;
+        try (InputStream source = in; OutputStream out = Files.newOutputStream(tmp)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                digest.update(buffer, 0, read);
+                size += read;
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return new IngestedFile(tmp, size, toHex(digest.digest()));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
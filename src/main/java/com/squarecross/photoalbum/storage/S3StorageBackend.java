@@ -0,0 +1,223 @@
+package com.squarecross.photoalbum.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * S3 호환 객체 저장소. endpoint를 지정하면 MinIO 같은 로컬 대체 서버에도 붙는다(path-style 주소).
+ * 객체 저장소에는 rename이 없으므로 move는 서버 측 복사 후 삭제다.
+ */
+@Component
+@ConditionalOnProperty(name = "photoalbum.storage.type", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+
+    // DeleteObjects 한 번에 지울 수 있는 최대 키 수
+    private static final int DELETE_BATCH = 1000;
+
+    private final S3Client s3;
+    private final String bucket;
+
+    public S3StorageBackend(@Value("${photoalbum.storage.s3.bucket}") String bucket,
+                            @Value("${photoalbum.storage.s3.region:us-east-1}") String region,
+                            @Value("${photoalbum.storage.s3.endpoint:}") String endpoint,
+                            @Value("${photoalbum.storage.s3.access-key:}") String accessKey,
+                            @Value("${photoalbum.storage.s3.secret-key:}") String secretKey) {
+        this(buildClient(region, endpoint, accessKey, secretKey), bucket);
+    }
+
+    S3StorageBackend(S3Client s3, String bucket) {
+        this.s3 = s3;
+        this.bucket = bucket;
+    }
+
+    private static S3Client buildClient(String region, String endpoint, String accessKey, String secretKey) {
+        S3ClientBuilder builder = S3Client.builder().region(Region.of(region));
+        if (!endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(endpoint))
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+        }
+        builder.credentialsProvider(accessKey.isEmpty()
+                ? DefaultCredentialsProvider.create()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        return builder.build();
+    }
+
+    @PreDestroy
+    public void close() {
+        s3.close();
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        }
+    }
+
+    @Override
+    public InputStream read(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        try {
+            String range = "bytes=" + offset + "-" + (offset + length - 1);
+            return s3.getObject(b -> b.bucket(bucket).key(objectKey(key)).range(range));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        }
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        HeadObjectResponse head = head(key);
+        if (head == null) {
+            throw new NoSuchFileException(key);
+        }
+        return new StoredObject(head.contentLength(), head.lastModified().toEpochMilli());
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return head(key) != null;
+    }
+
+    private HeadObjectResponse head(String key) {
+        try {
+            return s3.headObject(b -> b.bucket(bucket).key(objectKey(key)));
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(String key, InputStream in) throws IOException {
+        // PutObject는 길이를 미리 알아야 하므로 로컬 임시 파일에 받아서 올린다.
+        Path tmp = createTempFile();
+        try (InputStream source = in; OutputStream out = Files.newOutputStream(tmp)) {
+            source.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        put(key, tmp);
+    }
+
+    @Override
+    public void put(String key, Path file) throws IOException {
+        try {
+            s3.putObject(b -> b.bucket(bucket).key(objectKey(key)), RequestBody.fromFile(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // 확인과 업로드 사이에 같은 키를 올리거나 지우는 일은 BlobService가 photo_blob 행을 잠가 막는다. 노드가 여럿이어도 같다.
+    @Override
+    public boolean putIfAbsent(String key, Path file) throws IOException {
+        if (exists(key)) {
+            Files.deleteIfExists(file);
+            return false;
+        }
+        put(key, file);
+        return true;
+    }
+
+    @Override
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile("photoalbum-", ".tmp");
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        try {
+            s3.copyObject(b -> b.sourceBucket(bucket).sourceKey(objectKey(sourceKey))
+                    .destinationBucket(bucket).destinationKey(objectKey(targetKey)));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(sourceKey);
+        }
+        delete(sourceKey);
+    }
+
+    // quiet 모드에서도 지우지 못한 키는 응답의 errors에 담겨 온다.
+    @Override
+    public void delete(Collection<String> keys) throws DeleteFailedException {
+        Map<String, String> requested = new HashMap<>();
+        for (String key : keys) {
+            requested.put(objectKey(key), key);
+        }
+        List<ObjectIdentifier> ids = requested.keySet().stream()
+                .map(key -> ObjectIdentifier.builder().key(key).build())
+                .collect(Collectors.toList());
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += DELETE_BATCH) {
+            List<ObjectIdentifier> batch = ids.subList(i, Math.min(i + DELETE_BATCH, ids.size()));
+            DeleteObjectsResponse response = s3.deleteObjects(
+                    b -> b.bucket(bucket).delete(Delete.builder().objects(batch).quiet(true).build()));
+            for (S3Error error : response.errors()) {
+                failed.add(requested.getOrDefault(error.key(), error.key()));
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new DeleteFailedException(failed);
+        }
+    }
+
+    @Override
+    public long deletePrefix(String prefix) throws DeleteFailedException {
+        List<String> keys = new ArrayList<>();
+        for (S3Object object : s3.listObjectsV2Paginator(b -> b.bucket(bucket).prefix(objectKey(prefix))).contents()) {
+            keys.add(object.key());
+        }
+        delete(keys);
+        return keys.size();
+    }
+
+    @Override
+    public void createDirectory(String prefix) {
+        // 객체 저장소에는 디렉토리가 없다.
+    }
+
+    // 키 앞의 '/'는 S3 키에 넣지 않는다.
+    private static String objectKey(String key) {
+        return key.startsWith("/") ? key.substring(1) : key;
+    }
+}
@@ -0,0 +1,74 @@
+package com.squarecross.photoalbum.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 원본/썸네일 파일을 두는 저장소. 키는 "/photos/blobs/ab/cd/..." 같은 기존 URL 경로를 그대로 쓴다.
+ * 서비스는 이 인터페이스만 보고, 실제 위치(로컬 디스크, S3 호환 저장소)는 photoalbum.storage.type으로 고른다.
+ */
+public interface StorageBackend {
+
+    InputStream read(String key) throws IOException;
+
+    /**
+     * offset부터 length바이트만 읽는다. Range 다운로드에 쓴다.
+     */
+    InputStream read(String key, long offset, long length) throws IOException;
+
+    /**
+     * 크기와 수정 시각. 없으면 NoSuchFileException.
+     */
+    StoredObject stat(String key) throws IOException;
+
+    boolean exists(String key);
+
+    /**
+     * 스트림 전체를 key에 쓴다. 다 쓰기 전에는 key에 보이지 않고, 이미 있으면 바꾼다.
+     */
+    void write(String key, InputStream in) throws IOException;
+
+    /**
+     * createTempFile로 만든 로컬 파일을 key로 옮긴다(있으면 바꾼다). 성공하면 file은 남지 않는다.
+     */
+    void put(String key, Path file) throws IOException;
+
+    /**
+     * key가 비어 있을 때만 file을 옮기고 true를 돌려준다. 이미 있으면 file을 지우고 false.
+     */
+    boolean putIfAbsent(String key, Path file) throws IOException;
+
+    /**
+     * put으로 옮기기 좋은 위치에 임시 파일을 만든다. 로컬 저장소는 같은 파일시스템이라 rename으로 끝난다.
+     */
+    Path createTempFile() throws IOException;
+
+    void move(String sourceKey, String targetKey) throws IOException;
+
+    void delete(Collection<String> keys) throws IOException;
+
+    default void delete(String key) throws IOException {
+        delete(List.of(key));
+    }
+
+    /**
+     * prefix로 시작하는 키를 모두 지운다. 지운 개수를 돌려준다.
+     */
+    long deletePrefix(String prefix) throws IOException;
+
+    /**
+     * 디렉토리가 있어야 쓸 수 있는 저장소를 위해 prefix 자리를 만들어 둔다. 객체 저장소에서는 아무 일도 하지 않는다.
+     */
+    void createDirectory(String prefix) throws IOException;
+
+    /**
+     * 로컬 파일로 바로 열 수 있으면 그 경로. sendfile이나 파일 기반 디코딩처럼 복사 없이 읽을 때 쓴다.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
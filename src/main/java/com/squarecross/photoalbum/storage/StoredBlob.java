@@ -0,0 +1,32 @@
+package com.squarecross.photoalbum.storage;
+
+public class StoredBlob {
+    private final String hash;
+    private final long size;
+    private final String url;
+    private final boolean duplicate;
+
+    public StoredBlob(String hash, long size, String url, boolean duplicate) {
+        this.hash = hash;
+        this.size = size;
+        this.url = url;
+        this.duplicate = duplicate;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    // 같은 내용이 이미 저장되어 있어 새로 쓰지 않았는지
+    public boolean isDuplicate() {
+        return duplicate;
+    }
+}
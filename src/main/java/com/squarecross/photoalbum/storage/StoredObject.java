@@ -0,0 +1,20 @@
+package com.squarecross.photoalbum.storage;
+
+public class StoredObject {
+    private final long size;
+    private final long lastModified;
+
+    public StoredObject(long size, long lastModified) {
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    // epoch 밀리초
+    public long getLastModified() {
+        return lastModified;
+    }
+}
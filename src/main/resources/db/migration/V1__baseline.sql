@@ -0,0 +1,20 @@
+-- ddl-auto: update가 만들던 처음 스키마 그대로. 이미 그렇게 만들어진 DB는 이 버전으로 기준을 잡고(baseline-version: 1) V2부터 적용한다.
+
+CREATE TABLE album (
+    album_id   BIGINT       NOT NULL AUTO_INCREMENT,
+    album_name VARCHAR(255) NOT NULL,
+    created_at DATETIME(6)  NULL,
+    PRIMARY KEY (album_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE photo (
+    photo_id     BIGINT       NOT NULL AUTO_INCREMENT,
+    album_id     BIGINT       NULL,
+    file_name    VARCHAR(255) NULL,
+    file_size    INTEGER      NOT NULL,
+    original_url VARCHAR(255) NULL,
+    thumb_url    VARCHAR(255) NULL,
+    uploaded_at  DATETIME(6)  NULL,
+    PRIMARY KEY (photo_id),
+    CONSTRAINT fk_photo_album FOREIGN KEY (album_id) REFERENCES album (album_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,24 @@
+-- 처음 스키마 이후에 엔티티에 추가된 컬럼과 테이블.
+-- 기존 행은 삭제되지 않은 상태(deleted = 0)로 남는다. 앨범 집계 컬럼은 AlbumStatsReconciler가 첫 실행 때 채운다.
+-- thumb_status가 NULL인 기존 사진은 업로드 때 썸네일을 만든 사진이라 만들어진 것으로 본다.
+
+ALTER TABLE album
+    ADD COLUMN deleted          BIT(1)       NOT NULL DEFAULT 0,
+    ADD COLUMN photo_count      INTEGER      NOT NULL DEFAULT 0,
+    ADD COLUMN total_bytes      BIGINT       NOT NULL DEFAULT 0,
+    ADD COLUMN last_uploaded_at DATETIME(6)  NULL,
+    ADD COLUMN cover_photo_ids  VARCHAR(100) NULL;
+
+ALTER TABLE photo
+    ADD COLUMN checksum           VARCHAR(64)  NULL,
+    ADD COLUMN thumb_status       VARCHAR(255) NULL,
+    ADD COLUMN thumb_content_type VARCHAR(64)  NULL,
+    ADD COLUMN deleted            BIT(1)       NOT NULL DEFAULT 0;
+
+CREATE TABLE photo_blob (
+    hash       VARCHAR(64) NOT NULL,
+    size       BIGINT      NOT NULL,
+    ref_count  INTEGER     NOT NULL,
+    created_at DATETIME(6) NULL,
+    PRIMARY KEY (hash)
+) ENGINE = InnoDB;
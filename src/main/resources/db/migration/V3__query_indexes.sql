@@ -0,0 +1,24 @@
+-- PhotoRepository/AlbumRepository/BlobRepository의 조회가 풀 스캔하지 않도록 하는 인덱스.
+-- InnoDB 보조 인덱스에는 기본 키가 붙어 있으므로 키셋 페이지네이션의 (정렬 키, ID) 순서를 그대로 탄다.
+-- 쿼리를 추가하거나 바꾸면 QueryPlanTest에 같이 넣는다.
+
+-- 앨범 안 조회: 사진 수/용량/마지막 업로드 집계, 최신 4장, 대표 사진 윈도 쿼리, 앨범째 삭제.
+-- file_size까지 넣어 summarizeAlbums가 행을 읽지 않고 인덱스만으로 끝나게 한다.
+CREATE INDEX idx_photo_album_uploaded ON photo (album_id, deleted, uploaded_at, file_size);
+
+-- 같은 앨범 안 이름 조회, 이름 충돌 검사(LIKE 'prefix%')
+CREATE INDEX idx_photo_album_file_name ON photo (album_id, file_name);
+
+-- 전체 사진 목록 키셋 페이지네이션 (이름순/날짜순). deleted = 1 정리 작업도 같은 인덱스의 앞부분을 쓴다.
+CREATE INDEX idx_photo_deleted_file_name ON photo (deleted, file_name);
+CREATE INDEX idx_photo_deleted_uploaded ON photo (deleted, uploaded_at);
+
+-- 기동 시 PENDING 썸네일 재투입
+CREATE INDEX idx_photo_thumb_status ON photo (thumb_status);
+
+-- 앨범 이름 조회와 앨범 목록 키셋 페이지네이션 (이름순/날짜순), 삭제된 앨범 정리
+CREATE INDEX idx_album_deleted_name ON album (deleted, album_name);
+CREATE INDEX idx_album_deleted_created ON album (deleted, created_at);
+
+-- 참조가 사라진 원본 정리
+CREATE INDEX idx_photo_blob_ref_count ON photo_blob (ref_count);
@@ -0,0 +1,8 @@
+-- 날짜순 목록은 (날짜, ID) 키셋 커서를 쓴다. 날짜가 NULL인 행은 커서로 만들 수 없고 날짜 비교로도 닿지 못하므로 NOT NULL로 바꾼다.
+-- ddl-auto 시절 날짜 없이 저장된 행은 가장 이른 날짜로 채운다. 오름차순에서 NULL이 맨 앞에 오던 순서가 그대로 유지된다.
+
+UPDATE album SET created_at = '1970-01-01 00:00:00' WHERE created_at IS NULL;
+UPDATE photo SET uploaded_at = '1970-01-01 00:00:00' WHERE uploaded_at IS NULL;
+
+ALTER TABLE album MODIFY created_at DATETIME(6) NOT NULL;
+ALTER TABLE photo MODIFY uploaded_at DATETIME(6) NOT NULL;
@@ -0,0 +1,37 @@
+package com.squarecross.photoalbum.download;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadLimiterTest {
+
+    @Test
+    void rejectsWhenFullAndReleasesAfterBody() throws Exception {
+        DownloadLimiter limiter = new DownloadLimiter(1);
+
+        StreamingResponseBody body;
+        try (DownloadLimiter.Slot slot = limiter.acquire(new MockHttpServletRequest())) {
+            body = slot.wrap(out -> out.write(1));
+        }
+        // 본문을 넘겼으므로 요청 스레드가 돌아가도 자리는 본문이 끝날 때까지 잡혀 있다.
+        assertThrows(ResponseStatusException.class, () -> limiter.acquire(new MockHttpServletRequest()));
+
+        body.writeTo(new ByteArrayOutputStream());
+        limiter.acquire(new MockHttpServletRequest()).close();
+    }
+
+    @Test
+    void releasesWhenNoBody() {
+        DownloadLimiter limiter = new DownloadLimiter(1);
+        try (DownloadLimiter.Slot slot = limiter.acquire(new MockHttpServletRequest())) {
+            assertNull(slot.wrap(null)); // sendfile이나 416처럼 보낼 본문이 없는 경우
+        }
+        limiter.acquire(new MockHttpServletRequest()).close();
+    }
+}
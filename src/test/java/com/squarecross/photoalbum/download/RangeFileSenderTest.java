@@ -0,0 +1,104 @@
+package com.squarecross.photoalbum.download;
+
+import com.squarecross.photoalbum.metrics.PhotoMetrics;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import com.squarecross.photoalbum.storage.StoredObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RangeFileSenderTest {
+
+    private static final String KEY = "/photos/original/1/a.jpg";
+    private static final long LAST_MODIFIED = 1672531200000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parseRange() {
+        assertArrayEquals(new long[]{0, 99}, RangeFileSender.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 999}, RangeFileSender.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[]{900, 999}, RangeFileSender.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{990, 999}, RangeFileSender.parseRange("bytes=990-2000", 1000)); // 끝이 파일보다 크면 잘라낸다.
+    }
+
+    @Test
+    void parseRangeNotSatisfiable() {
+        assertNull(RangeFileSender.parseRange("bytes=1000-", 1000));
+        assertNull(RangeFileSender.parseRange("bytes=-0", 1000));
+    }
+
+    @Test
+    void parseRangeUnsupportedSendsWholeFile() {
+        assertEquals(0, RangeFileSender.parseRange("bytes=0-1,5-6", 1000).length); // 다중 구간은 전체 전송
+        assertEquals(0, RangeFileSender.parseRange("items=0-1", 1000).length);
+        assertEquals(0, RangeFileSender.parseRange("bytes=abc-", 1000).length);
+        assertEquals(0, RangeFileSender.parseRange("bytes=50-10", 1000).length); // 잘못된 구간은 무시한다.
+    }
+
+    @Test
+    void ifRangeDateMustMatchExactly() throws Exception {
+        RangeFileSender sender = sender(Files.write(dir.resolve("a.jpg"), new byte[100]), 100);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        request.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED + 60_000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        sender.send(KEY, "a.jpg", request, response);
+
+        // 수정 시각보다 나중 날짜여도 같지 않으면 전체 파일을 보낸다.
+        assertEquals(200, response.getStatus());
+        assertEquals(100, response.getContentLengthLong());
+    }
+
+    @Test
+    void ifRangeDateMatchSendsRange() throws Exception {
+        RangeFileSender sender = sender(Files.write(dir.resolve("a.jpg"), new byte[100]), 100);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        request.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        sender.send(KEY, "a.jpg", request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(10, response.getContentLengthLong());
+    }
+
+    @Test
+    void truncatedFileFailsInsteadOfSpinning() throws Exception {
+        // stat은 100바이트라고 했는데 그 사이 파일이 10바이트로 줄었다.
+        RangeFileSender sender = sender(Files.write(dir.resolve("a.jpg"), new byte[10]), 100);
+        StreamingResponseBody body = sender.send(KEY, "a.jpg", new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(EOFException.class, () -> body.writeTo(new ByteArrayOutputStream())));
+    }
+
+    private static RangeFileSender sender(Path file, long statSize) throws Exception {
+        StorageBackend storage = mock(StorageBackend.class);
+        when(storage.stat(KEY)).thenReturn(new StoredObject(statSize, LAST_MODIFIED));
+        when(storage.localPath(KEY)).thenReturn(Optional.of(file));
+        RangeFileSender sender = new RangeFileSender();
+        ReflectionTestUtils.setField(sender, "storage", storage);
+        ReflectionTestUtils.setField(sender, "photoMetrics", new PhotoMetrics(new SimpleMeterRegistry()));
+        return sender;
+    }
+}
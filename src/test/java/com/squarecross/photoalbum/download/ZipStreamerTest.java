@@ -0,0 +1,120 @@
+package com.squarecross.photoalbum.download;
+
+import com.squarecross.photoalbum.dto.PhotoDto;
+import com.squarecross.photoalbum.metrics.PhotoMetrics;
+import com.squarecross.photoalbum.storage.LocalStorageBackend;
+import com.squarecross.photoalbum.storage.ParallelDeleter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZipStreamerTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void uniqueName() {
+        Set<String> used = new HashSet<>();
+        assertEquals("사진.png", ZipStreamer.uniqueName("사진.png", used));
+        assertEquals("사진 (2).png", ZipStreamer.uniqueName("사진.png", used)); // 다른 앨범의 같은 이름
+        assertEquals("사진 (3).png", ZipStreamer.uniqueName("사진.png", used));
+        assertEquals("README", ZipStreamer.uniqueName("README", used));
+        assertEquals("README (2)", ZipStreamer.uniqueName("README", used));
+    }
+
+    @Test
+    void remoteEntriesAreReadOnce() throws Exception {
+        ParallelDeleter parallelDeleter = new ParallelDeleter(1);
+        RemoteLikeStorage storage = new RemoteLikeStorage(root.toString(), parallelDeleter);
+        storage.init();
+        List<PhotoDto> photos = new ArrayList<>();
+        for (String name : List.of("a.jpg", "b.png", "c.jpg", "d.txt")) {
+            storage.write("photos/" + name, new ByteArrayInputStream(name.getBytes(StandardCharsets.UTF_8)));
+            PhotoDto photo = new PhotoDto();
+            photo.setFileName(name);
+            photo.setOriginalUrl("photos/" + name);
+            photos.add(photo);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ZipStreamer zipStreamer = new ZipStreamer();
+            ReflectionTestUtils.setField(zipStreamer, "storage", storage);
+            ReflectionTestUtils.setField(zipStreamer, "photoMetrics", new PhotoMetrics(new SimpleMeterRegistry()));
+            ReflectionTestUtils.setField(zipStreamer, "zipPrefetchExecutor", executor);
+            ReflectionTestUtils.setField(zipStreamer, "readAhead", 2);
+            zipStreamer.write(photos, out);
+        } finally {
+            executor.shutdown();
+            parallelDeleter.shutdown();
+        }
+
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(Map.of("a.jpg", "a.jpg", "b.png", "b.png", "c.jpg", "c.jpg", "d.txt", "d.txt"), entries);
+        // CRC를 계산하며 받아 둔 임시 파일을 보내므로 원격 객체는 한 번씩만 읽는다.
+        storage.reads.values().forEach(count -> assertEquals(1, count));
+        assertEquals(4, storage.reads.size());
+        for (Path staged : storage.tempFiles) {
+            assertFalse(Files.exists(staged));
+        }
+    }
+
+    // 로컬 경로를 내주지 않아 ZipStreamer가 원격 저장소처럼 다루는 백엔드. 읽기 횟수와 임시 파일을 기록한다.
+    private static class RemoteLikeStorage extends LocalStorageBackend {
+
+        final Map<String, Integer> reads = new HashMap<>();
+        final List<Path> tempFiles = new ArrayList<>();
+
+        RemoteLikeStorage(String root, ParallelDeleter parallelDeleter) {
+            super(root, parallelDeleter);
+        }
+
+        @Override
+        public synchronized InputStream read(String key) throws IOException {
+            reads.merge(key, 1, Integer::sum);
+            return super.read(key);
+        }
+
+        @Override
+        public synchronized Path createTempFile() throws IOException {
+            Path tmp = super.createTempFile();
+            tempFiles.add(tmp);
+            return tmp;
+        }
+
+        @Override
+        public Optional<Path> localPath(String key) {
+            return Optional.empty();
+        }
+    }
+}
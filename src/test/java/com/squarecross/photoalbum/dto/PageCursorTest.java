@@ -0,0 +1,44 @@
+package com.squarecross.photoalbum.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void roundTrip() {
+        PageCursor byName = PageCursor.decode(PageCursor.encode("개선 (4).PNG", 42L));
+        assertEquals("개선 (4).PNG", byName.getKey());
+        assertEquals(42L, byName.getId());
+
+        Date uploadedAt = new Date(1672531200123L);
+        PageCursor byDate = PageCursor.decode(PageCursor.encode(uploadedAt, 7L));
+        assertEquals(uploadedAt, byDate.getDateKey());
+        assertEquals(7L, byDate.getId());
+    }
+
+    @Test
+    void backfilledDateRoundTrips() {
+        // V4가 NULL 날짜를 채운 값. 시간대에 따라 1970-01-01 이전(음수)일 수 있다.
+        Date backfilled = Timestamp.valueOf("1970-01-01 00:00:00");
+        PageCursor cursor = PageCursor.decode(PageCursor.encode(backfilled, 3L));
+        assertEquals(backfilled.getTime(), cursor.getDateKey().getTime());
+        assertEquals(3L, cursor.getId());
+    }
+
+    @Test
+    void emptyCursorIsFirstPage() {
+        assertNull(PageCursor.decode(null).getId());
+        assertNull(PageCursor.decode("").getDateKey());
+    }
+
+    @Test
+    void invalidCursor() {
+        Throwable exception = assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("!!!"));
+        assertEquals("잘못된 커서입니다.", exception.getMessage());
+    }
+}
@@ -0,0 +1,46 @@
+package com.squarecross.photoalbum.image;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastThumbnailRendererTest {
+
+    private final FastThumbnailRenderer renderer = new FastThumbnailRenderer();
+
+    @Test
+    void fitsLongSideLikeScalr() {
+        assertSize(300, 225, renderer.resize(image(4000, 3000, BufferedImage.TYPE_3BYTE_BGR), 300));
+        assertSize(150, 300, renderer.resize(image(600, 1200, BufferedImage.TYPE_3BYTE_BGR), 300));
+    }
+
+    @Test
+    void keepsAlphaAndDoesNotLeakPooledBuffers() {
+        BufferedImage opaque = image(1200, 900, BufferedImage.TYPE_INT_ARGB);
+        renderer.resize(opaque, 300);
+
+        // 같은 크기의 중간 버퍼를 다시 쓰더라도 이전 이미지 내용이 남지 않아야 한다.
+        BufferedImage transparent = new BufferedImage(1200, 900, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage result = renderer.resize(transparent, 300);
+        assertTrue(result.getColorModel().hasAlpha());
+        assertEquals(0, result.getRGB(150, 110) >>> 24);
+    }
+
+    private static BufferedImage image(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    private static void assertSize(int width, int height, BufferedImage image) {
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+}
@@ -0,0 +1,72 @@
+package com.squarecross.photoalbum.image;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenditionCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private RenditionCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new RenditionCache(dir.toString(), 10, 600_000);
+        cache.load();
+    }
+
+    @Test
+    void removedWhileServingIsDeletedOnRelease() throws IOException {
+        Path served = write("01/1/800.jpg", 4);
+        cache.register("01/1/800.jpg");
+
+        cache.removeByPrefix("01/1/");
+
+        assertNull(cache.acquire("01/1/800.jpg"));
+        assertTrue(Files.exists(served));
+        cache.release("01/1/800.jpg");
+        assertFalse(Files.exists(served));
+    }
+
+    @Test
+    void evictionSkipsDeletingPinnedFile() throws IOException {
+        Path first = write("01/1/800.jpg", 6);
+        cache.register("01/1/800.jpg");
+        cache.release("01/1/800.jpg");
+        assertNotNull(cache.acquire("01/1/800.jpg"));
+
+        // 최대 10바이트를 넘으므로 가장 오래된 항목이 캐시에서 빠진다.
+        write("02/2/800.jpg", 6);
+        cache.register("02/2/800.jpg");
+
+        assertNull(cache.acquire("01/1/800.jpg"));
+        assertTrue(Files.exists(first));
+        cache.release("01/1/800.jpg");
+        assertFalse(Files.exists(first));
+    }
+
+    @Test
+    void unpinnedFileIsDeletedImmediately() throws IOException {
+        Path file = write("01/1/800.jpg", 4);
+        cache.register("01/1/800.jpg");
+        cache.release("01/1/800.jpg");
+
+        cache.remove("01/1/800.jpg");
+
+        assertFalse(Files.exists(file));
+    }
+
+    private Path write(String key, int size) throws IOException {
+        Path path = cache.resolve(key);
+        Files.createDirectories(path.getParent());
+        return Files.write(path, new byte[size]);
+    }
+}
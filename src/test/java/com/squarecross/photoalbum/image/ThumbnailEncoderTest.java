@@ -0,0 +1,76 @@
+package com.squarecross.photoalbum.image;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailEncoderTest {
+
+    private final ThumbnailEncoder encoder = new ThumbnailEncoder(0.82f, true, 256);
+
+    @Test
+    void flatImageBecomesPalettePng() throws IOException {
+        BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 300, 200);
+        g.setColor(Color.BLUE);
+        g.fillRect(50, 50, 100, 100);
+        g.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(ThumbnailEncoder.PNG, encoder.encode(image, out));
+
+        byte[] bytes = out.toByteArray();
+        assertEquals(ThumbnailEncoder.PNG, ThumbnailEncoder.detectContentType(bytes));
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(bytes));
+        assertEquals(Color.BLUE.getRGB(), decoded.getRGB(100, 100));
+        assertEquals(Color.WHITE.getRGB(), decoded.getRGB(10, 10));
+    }
+
+    @Test
+    void photoLikeImageBecomesJpeg() throws IOException {
+        BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(1);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 300; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(ThumbnailEncoder.JPEG, encoder.encode(image, out));
+        assertEquals(ThumbnailEncoder.JPEG, ThumbnailEncoder.detectContentType(out.toByteArray()));
+    }
+
+    @Test
+    void translucentImageStaysPng() throws IOException {
+        BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(1);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 300; x++) {
+                image.setRGB(x, y, (x % 256) << 24 | random.nextInt(0x1000000));
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(ThumbnailEncoder.PNG, encoder.encode(image, out));
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(decoded.getColorModel().hasAlpha());
+    }
+
+    @Test
+    void unknownHeaderIsNotDetected() {
+        assertNull(ThumbnailEncoder.detectContentType(new byte[]{'B', 'M', 0, 0}));
+        assertNull(ThumbnailEncoder.detectContentType(new byte[0]));
+    }
+}
@@ -0,0 +1,33 @@
+package com.squarecross.photoalbum.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCountFilterTest {
+
+    @Test
+    void recordsStatementsPerUriPattern() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryCountFilter filter = new QueryCountFilter(registry);
+        QueryCountInspector inspector = new QueryCountInspector();
+        inspector.inspect("select 1"); // 이전 요청에서 남은 수는 요청 시작 시 지워진다.
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/albums/1/photos");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/albums/{albumId}/photos");
+            inspector.inspect("select * from album");
+            inspector.inspect("select * from photo");
+        });
+
+        DistributionSummary summary = registry.get("photoalbum.request.queries")
+                .tag("uri", "/albums/{albumId}/photos").summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+}
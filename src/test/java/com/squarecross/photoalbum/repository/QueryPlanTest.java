@@ -0,0 +1,321 @@
+package com.squarecross.photoalbum.repository;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.squarecross.photoalbum.domain.ThumbStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Flyway 마이그레이션으로 만든 스키마에서 리포지토리의 자주 쓰는 쿼리를 실제로 호출하고,
+ * Hibernate가 보낸 SQL을 바인딩 값 그대로 EXPLAIN해 테이블 풀 스캔(type=ALL)이나 인덱스 전체 스캔(type=index)이 없는지 확인한다.
+ * 키워드 검색(findBy...Containing)은 SearchService가 색인으로 처리하므로 여기서 다루지 않는다.
+ * 내장 MariaDB를 띄우므로 리눅스에서는 libaio와 libncurses가 필요하다.
+ */
+@SpringBootTest
+@DirtiesContext // 내장 DB는 JVM이 끝날 때 멈추므로 이 DB를 가리키는 컨텍스트를 다른 테스트가 재사용하지 않게 한다.
+class QueryPlanTest {
+
+    private static final int ALBUMS = 1000;
+    private static final int PHOTOS_PER_ALBUM = 20;
+    private static final List<Long> ALBUM_IDS = LongStream.rangeClosed(1, 50).boxed().collect(Collectors.toList());
+    private static final PageRequest PAGE = PageRequest.of(0, 51);
+    private static final Timestamp CURSOR_DATE = Timestamp.valueOf("2023-01-08 00:00:00");
+
+    // capture 중인 스레드가 prepareStatement로 보낸 SQL
+    private static final ThreadLocal<List<Executed>> CAPTURED = new ThreadLocal<>();
+
+    private static DB db;
+
+    @Autowired
+    PhotoRepository photoRepository;
+
+    @Autowired
+    AlbumRepository albumRepository;
+
+    @Autowired
+    BlobRepository blobRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        DBConfiguration config = DBConfigurationBuilder.newBuilder().setPort(0).build();
+        db = DB.newEmbeddedDB(config);
+        db.start();
+        db.createDB("photo_album");
+        registry.add("spring.datasource.url", () -> "jdbc:mysql://localhost:" + config.getPort() + "/photo_album?useSSL=false");
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    // 스키마는 컨텍스트가 뜰 때 Flyway가 만든다.
+    @BeforeAll
+    static void seed(@Autowired DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            seed(connection);
+        }
+    }
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                Arguments.of("PhotoRepository.findAlbumCovers",
+                        call((photos, albums, blobs) -> photos.findAlbumCovers(ALBUM_IDS, 4))),
+                Arguments.of("PhotoRepository.summarizeAlbums",
+                        call((photos, albums, blobs) -> photos.summarizeAlbums(ALBUM_IDS))),
+                Arguments.of("PhotoRepository.findByFileNameAndAlbum_AlbumId",
+                        call((photos, albums, blobs) -> photos.findByFileNameAndAlbum_AlbumId("photo-10-5.jpg", 10L))),
+                Arguments.of("PhotoRepository.findFileNamesByPrefix",
+                        call((photos, albums, blobs) -> photos.findFileNamesByPrefix(10L, "photo-10-"))),
+                Arguments.of("PhotoRepository.findPageByNameAsc (첫 페이지)",
+                        call((photos, albums, blobs) -> photos.findPageByNameAsc(null, null, PAGE))),
+                Arguments.of("PhotoRepository.findPageByNameAsc",
+                        call((photos, albums, blobs) -> photos.findPageByNameAsc("photo-500-1.jpg", 5000L, PAGE))),
+                Arguments.of("PhotoRepository.findPageByNameDesc",
+                        call((photos, albums, blobs) -> photos.findPageByNameDesc("photo-500-1.jpg", 5000L, PAGE))),
+                Arguments.of("PhotoRepository.findPageByDateAsc",
+                        call((photos, albums, blobs) -> photos.findPageByDateAsc(CURSOR_DATE, 5000L, PAGE))),
+                Arguments.of("PhotoRepository.findPageByDateDesc",
+                        call((photos, albums, blobs) -> photos.findPageByDateDesc(CURSOR_DATE, 5000L, PAGE))),
+                Arguments.of("PhotoRepository.findByThumbStatus",
+                        call((photos, albums, blobs) -> photos.findByThumbStatus(ThumbStatus.PENDING))),
+                Arguments.of("PhotoRepository.findIdsByAlbumId",
+                        call((photos, albums, blobs) -> photos.findIdsByAlbumId(10L))),
+                Arguments.of("PhotoRepository.findDeletedPhotos",
+                        call((photos, albums, blobs) -> photos.findDeletedPhotos(500))),
+                Arguments.of("PhotoRepository.findDeletedByAlbumId",
+                        call((photos, albums, blobs) -> photos.findDeletedByAlbumId(10L, 500))),
+                Arguments.of("AlbumRepository.findByAlbumName",
+                        call((photos, albums, blobs) -> albums.findByAlbumName("album-10"))),
+                Arguments.of("AlbumRepository.findPageByNameAsc",
+                        call((photos, albums, blobs) -> albums.findPageByNameAsc("album-500", 500L, PAGE))),
+                Arguments.of("AlbumRepository.findPageByNameDesc",
+                        call((photos, albums, blobs) -> albums.findPageByNameDesc("album-500", 500L, PAGE))),
+                Arguments.of("AlbumRepository.findPageByDateAsc",
+                        call((photos, albums, blobs) -> albums.findPageByDateAsc(Timestamp.valueOf("2023-01-01 08:20:00"), 500L, PAGE))),
+                Arguments.of("AlbumRepository.findPageByDateDesc",
+                        call((photos, albums, blobs) -> albums.findPageByDateDesc(Timestamp.valueOf("2023-01-01 08:20:00"), 500L, PAGE))),
+                Arguments.of("AlbumRepository.findDeletedIds",
+                        call((photos, albums, blobs) -> albums.findDeletedIds(500))),
+                Arguments.of("AlbumRepository.findBatchAfter",
+                        call((photos, albums, blobs) -> albums.findBatchAfter(500L, PageRequest.of(0, 500)))),
+                Arguments.of("BlobRepository.findUnreferenced",
+                        call((photos, albums, blobs) -> blobs.findUnreferenced(500)))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryDoesNotScanTable(String name, RepositoryCall call) throws Throwable {
+        CAPTURED.set(new ArrayList<>());
+        List<Executed> executed;
+        try {
+            call.run(photoRepository, albumRepository, blobRepository);
+        } finally {
+            executed = CAPTURED.get();
+            CAPTURED.remove();
+        }
+
+        assertFalse(executed.isEmpty(), name + " 호출이 SQL을 실행하지 않았습니다.");
+        for (Executed statement : executed) {
+            List<String> scans = explain(statement);
+            assertTrue(scans.isEmpty(), name + " 쿼리가 " + scans + "를 전부 읽습니다: " + statement.sql);
+        }
+    }
+
+    // 실행된 SQL 앞에 EXPLAIN을 붙이고 같은 값을 같은 setter로 다시 바인딩한다.
+    private List<String> explain(Executed statement) throws Throwable {
+        List<String> scans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql)) {
+            for (Bind bind : statement.binds.values()) {
+                invoke(explain, bind.setter, bind.args);
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                while (plan.next()) {
+                    String table = plan.getString("table");
+                    String type = plan.getString("type");
+                    // 파생 테이블(<derived2> 등)은 이미 인덱스로 걸러 낸 중간 결과라 검사하지 않는다.
+                    if (("ALL".equals(type) || "index".equals(type)) && table != null && !table.startsWith("<")) {
+                        scans.add(table + "(type=" + type + ")");
+                    }
+                }
+            }
+        }
+        return scans;
+    }
+
+    private static RepositoryCall call(RepositoryCall call) {
+        return call;
+    }
+
+    interface RepositoryCall {
+        void run(PhotoRepository photos, AlbumRepository albums, BlobRepository blobs);
+    }
+
+    private static class Executed {
+        private final String sql;
+        // 파라미터 위치 → 마지막으로 호출된 setXxx
+        private final Map<Integer, Bind> binds = new TreeMap<>();
+
+        private Executed(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private static class Bind {
+        private final Method setter;
+        private final Object[] args;
+
+        private Bind(Method setter, Object[] args) {
+            this.setter = setter;
+            this.args = args;
+        }
+    }
+
+    /**
+     * DataSource를 감싸 capture 중인 스레드가 준비한 SQL과 바인딩 값을 기록한다.
+     * Hibernate가 만든 문장(@Where 조건, LIMIT 등)을 손으로 옮겨 적지 않고 그대로 EXPLAIN하기 위해서다.
+     */
+    @TestConfiguration
+    static class CaptureConfig {
+        @Bean
+        static BeanPostProcessor capturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? capturing((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    private static DataSource capturing(DataSource target) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection ? capturing((Connection) result) : result;
+        });
+    }
+
+    private static Connection capturing(Connection target) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            List<Executed> captured = CAPTURED.get();
+            if (captured != null && method.getName().equals("prepareStatement")) {
+                Executed executed = new Executed((String) args[0]);
+                captured.add(executed);
+                return capturing((PreparedStatement) result, executed);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement capturing(PreparedStatement target, Executed executed) {
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            // setLong(int, long), setNull(int, int), setTimestamp(int, Timestamp) 같은 파라미터 바인딩만 남긴다.
+            if (method.getName().startsWith("set") && args != null && args.length >= 2
+                    && method.getParameterTypes()[0] == int.class) {
+                executed.binds.put((Integer) args[0], new Bind(method, args));
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // 옵티마이저가 작은 테이블은 인덱스 대신 풀 스캔을 고르므로 운영과 비슷한 분포로 충분히 채운다.
+    private static void seed(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        long base = Timestamp.valueOf("2023-01-01 00:00:00").getTime();
+        try (PreparedStatement album = connection.prepareStatement(
+                "INSERT INTO album (album_name, created_at, deleted) VALUES (?, ?, ?)");
+             PreparedStatement photo = connection.prepareStatement(
+                     "INSERT INTO photo (album_id, file_name, file_size, original_url, thumb_url, checksum, "
+                             + "thumb_status, uploaded_at, deleted) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement blob = connection.prepareStatement(
+                     "INSERT INTO photo_blob (hash, size, ref_count, created_at) VALUES (?, ?, ?, ?)")) {
+            for (int a = 1; a <= ALBUMS; a++) {
+                album.setString(1, "album-" + a);
+                album.setTimestamp(2, new Timestamp(base + a * 60_000L));
+                album.setBoolean(3, a % 50 == 0);
+                album.addBatch();
+            }
+            album.executeBatch();
+
+            for (int a = 1; a <= ALBUMS; a++) {
+                for (int i = 1; i <= PHOTOS_PER_ALBUM; i++) {
+                    long n = (long) a * PHOTOS_PER_ALBUM + i;
+                    String hash = String.format("%064x", n);
+                    photo.setLong(1, a);
+                    photo.setString(2, "photo-" + a + "-" + i + ".jpg");
+                    photo.setInt(3, 100_000 + i);
+                    photo.setString(4, "/photos/blobs/" + hash);
+                    photo.setString(5, "/photos/blob-thumbs/" + hash);
+                    photo.setString(6, hash);
+                    photo.setString(7, n % 100 == 0 ? "PENDING" : "READY");
+                    photo.setTimestamp(8, new Timestamp(base + ((long) i * ALBUMS + a) * 60_000L));
+                    photo.setBoolean(9, n % 40 == 0);
+                    photo.addBatch();
+
+                    blob.setString(1, hash);
+                    blob.setLong(2, 100_000 + i);
+                    blob.setInt(3, n % 40 == 0 ? 0 : 1);
+                    blob.setTimestamp(4, new Timestamp(base));
+                    blob.addBatch();
+                }
+                photo.executeBatch();
+                blob.executeBatch();
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE album, photo, photo_blob");
+        }
+    }
+}
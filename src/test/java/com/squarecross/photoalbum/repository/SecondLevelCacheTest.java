@@ -0,0 +1,127 @@
+package com.squarecross.photoalbum.repository;
+
+import com.squarecross.photoalbum.domain.Album;
+import com.squarecross.photoalbum.domain.Photo;
+import com.squarecross.photoalbum.domain.ThumbStatus;
+import com.squarecross.photoalbum.service.ThumbnailStatusService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 캐시는 커밋된 뒤에 채워지므로 @Transactional 없이 실제로 저장하고 지운다.
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    AlbumRepository albumRepository;
+
+    @Autowired
+    PhotoRepository photoRepository;
+
+    @Autowired
+    ThumbnailStatusService thumbnailStatusService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private Long albumId;
+    private final List<Long> photoIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Album album = new Album();
+        album.setAlbumName("캐시 테스트");
+        albumId = albumRepository.save(album).getAlbumId();
+        albumRepository.findById(albumId); // IDENTITY로 INSERT한 엔티티는 첫 조회 때 캐시에 들어간다.
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (!photoIds.isEmpty()) {
+            photoRepository.softDeleteByIds(photoIds);
+            photoRepository.purgeByIds(photoIds);
+        }
+        albumRepository.softDeleteById(albumId);
+        albumRepository.purgeById(albumId);
+    }
+
+    @Test
+    void albumReadsAreServedFromCache() {
+        albumRepository.findById(albumId);
+        albumRepository.findById(albumId);
+
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void cacheHitsAreExportedAsMetrics() {
+        albumRepository.findById(albumId);
+
+        FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", Album.class.getName(), "result", "hit").functionCounter();
+        assertNotNull(hits);
+        assertTrue(hits.count() >= 1);
+    }
+
+    @Test
+    void renameIsVisibleToNextRead() {
+        Album album = albumRepository.findById(albumId).get();
+        album.setAlbumName("바뀐 이름");
+        albumRepository.save(album);
+
+        assertEquals("바뀐 이름", albumRepository.findById(albumId).get().getAlbumName());
+    }
+
+    @Test
+    void softDeleteEvictsAlbum() {
+        albumRepository.softDeleteById(albumId);
+
+        assertFalse(albumRepository.findById(albumId).isPresent());
+    }
+
+    @Test
+    void thumbnailStatusUpdateKeepsOtherPhotosCached() {
+        Long rendered = savePhoto("a.jpg");
+        Long other = savePhoto("b.jpg");
+        photoRepository.findById(rendered);
+        photoRepository.findById(other);
+        statistics.clear();
+
+        thumbnailStatusService.markReady(rendered, "image/jpeg");
+
+        Photo photo = photoRepository.findById(rendered).get();
+        assertEquals(ThumbStatus.READY, photo.getThumbStatus());
+        assertEquals("image/jpeg", photo.getThumbContentType());
+        photoRepository.findById(other);
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private Long savePhoto(String fileName) {
+        Photo photo = new Photo();
+        photo.setFileName(fileName);
+        photo.setThumbStatus(ThumbStatus.PENDING);
+        photo.setAlbum(albumRepository.findById(albumId).get());
+        Long photoId = photoRepository.save(photo).getPhotoId();
+        photoIds.add(photoId);
+        return photoId;
+    }
+}
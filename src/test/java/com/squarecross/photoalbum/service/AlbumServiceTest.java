@@ -36,6 +36,9 @@ class AlbumServiceTest {
     @Autowired
     AlbumService albumService;
 
+    @Autowired
+    AlbumStatsService albumStatsService;
+
     @Test
     void getAlbum() {
         Album album = new Album();
@@ -88,19 +91,46 @@ class AlbumServiceTest {
         album.setAlbumName("테스트");
         Album savedAlbum = albumRepository.save(album);
 
-        // 사진을 생성하고, setAlbum을 통해 앨범을 지정해준 이후, repository을 사진을 저장한다.
+        // 사진을 생성하고, setAlbum을 통해 앨범을 지정해준 이후, 앨범 집계와 함께 사진을 저장한다.
         Photo photo1 = new Photo();
         photo1.setFileName("사진1");
+        photo1.setFileSize(100);
         photo1.setAlbum(savedAlbum);
-        photoRepository.save(photo1);
+        albumStatsService.insertPhoto(photo1);
 
         Photo photo2 = new Photo();
         photo2.setFileName("사진1");
+        photo2.setFileSize(200);
         photo2.setAlbum(savedAlbum);
-        photoRepository.save(photo2);
+        albumStatsService.insertPhoto(photo2);
 
         AlbumDto albumDto = albumService.getAlbum(savedAlbum.getAlbumId());
         assertEquals(2, albumDto.getCount());
+        assertEquals(300, albumDto.getTotalBytes());
+        assertEquals(List.of(
+                "/albums/" + savedAlbum.getAlbumId() + "/photos/" + photo2.getPhotoId() + "/thumb",
+                "/albums/" + savedAlbum.getAlbumId() + "/photos/" + photo1.getPhotoId() + "/thumb"), albumDto.getThumbUrls());
+    }
+
+    @Test
+    void repairAlbumStats() {
+        Album album = new Album();
+        album.setAlbumName("테스트");
+        Album savedAlbum = albumRepository.save(album);
+
+        // 집계를 거치지 않고 넣은 사진은 보정 작업이 채운다.
+        Photo photo = new Photo();
+        photo.setFileName("사진1");
+        photo.setFileSize(100);
+        photo.setAlbum(savedAlbum);
+        photoRepository.save(photo);
+
+        assertTrue(albumStatsService.repair(savedAlbum.getAlbumId()));
+        assertFalse(albumStatsService.repair(savedAlbum.getAlbumId()));
+        AlbumDto albumDto = albumService.getAlbum(savedAlbum.getAlbumId());
+        assertEquals(1, albumDto.getCount());
+        assertEquals(100, albumDto.getTotalBytes());
+        assertEquals(1, albumDto.getThumbUrls().size());
     }
 
     @Test
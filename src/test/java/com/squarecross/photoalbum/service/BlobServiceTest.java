@@ -0,0 +1,122 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.repository.BlobRepository;
+import com.squarecross.photoalbum.storage.BlobStore;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import com.squarecross.photoalbum.storage.StoredBlob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+// 참조 수는 커밋된 값으로 판단하므로 @Transactional 없이 실제로 저장하고 정리한다.
+@SpringBootTest
+class BlobServiceTest {
+
+    @DynamicPropertySource
+    static void storageRoot(DynamicPropertyRegistry registry) throws IOException {
+        Path root = Files.createTempDirectory("blob-service-test-");
+        registry.add("photoalbum.storage.local.root", root::toString);
+    }
+
+    @Autowired
+    BlobService blobService;
+
+    @SpyBean
+    BlobRepository blobRepository;
+
+    @Autowired
+    StorageBackend storage;
+
+    private final List<String> hashes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        reset(blobRepository);
+        // store 한 번에 참조 하나. 이미 정리된 내용이면 release는 아무 행도 바꾸지 않는다.
+        blobService.release(hashes);
+        blobService.collect(1000);
+    }
+
+    @Test
+    void duplicateUploadSkipsWrite() throws IOException {
+        byte[] content = randomContent();
+        StoredBlob first = store(content);
+        Object fileKey = fileKey(first.getUrl());
+
+        StoredBlob second = store(content);
+
+        assertFalse(first.isDuplicate());
+        assertTrue(second.isDuplicate());
+        assertEquals(first.getHash(), second.getHash());
+        // 파일을 다시 쓰지 않았으므로 처음 옮겨 놓은 파일 그대로다.
+        assertEquals(fileKey, fileKey(second.getUrl()));
+        assertEquals(2, blobRepository.findById(first.getHash()).get().getRefCount());
+    }
+
+    @Test
+    void releaseThenCollectRemovesBlobAndThumbnails() throws IOException {
+        StoredBlob blob = store(randomContent());
+        String thumbUrl = BlobStore.thumbUrl(blob.getHash(), "jpg");
+        storage.write(thumbUrl, new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        blobService.release(List.of(blob.getHash()));
+        hashes.remove(blob.getHash());
+        blobService.collect(1000);
+
+        assertFalse(storage.exists(blob.getUrl()));
+        assertFalse(storage.exists(thumbUrl));
+        assertFalse(blobRepository.existsById(blob.getHash()));
+    }
+
+    @Test
+    void blobRetainedDuringCollectKeepsItsFile() throws IOException {
+        StoredBlob blob = store(randomContent());
+        blobService.release(List.of(blob.getHash())); // 아래에서 다시 참조한 것은 tearDown이 돌려준다.
+        // 정리 대상을 고른 직후, 지우기 전에 같은 내용을 다시 참조한다.
+        doAnswer(invocation -> {
+            Object unreferenced = invocation.callRealMethod();
+            blobService.retain(blob.getHash(), blob.getSize());
+            return unreferenced;
+        }).when(blobRepository).findUnreferenced(anyInt());
+
+        blobService.collect(1000);
+
+        assertTrue(storage.exists(blob.getUrl()));
+        assertEquals(1, blobRepository.findById(blob.getHash()).get().getRefCount());
+    }
+
+    private StoredBlob store(byte[] content) throws IOException {
+        StoredBlob blob = blobService.store(new ByteArrayInputStream(content));
+        hashes.add(blob.getHash());
+        return blob;
+    }
+
+    private Object fileKey(String url) throws IOException {
+        Path path = storage.localPath(url).get();
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    private static byte[] randomContent() {
+        byte[] content = new byte[1024];
+        new Random().nextBytes(content);
+        return content;
+    }
+}
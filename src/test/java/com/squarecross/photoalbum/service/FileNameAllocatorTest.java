@@ -0,0 +1,77 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FileNameAllocatorTest {
+
+    @Mock
+    PhotoRepository photoRepository;
+
+    @InjectMocks
+    FileNameAllocator fileNameAllocator;
+
+    @Test
+    void nextFreeName() {
+        assertEquals("IMG.jpg", FileNameAllocator.nextFreeName("IMG.jpg", Set.of("IMG (2).jpg")));
+        assertEquals("IMG (3).jpg", FileNameAllocator.nextFreeName("IMG.jpg", Set.of("IMG.jpg", "IMG (2).jpg")));
+        // 중간에 빈 번호가 있으면 그 번호를 쓴다.
+        assertEquals("IMG (2).jpg", FileNameAllocator.nextFreeName("IMG.jpg", Set.of("IMG.jpg", "IMG (3).jpg")));
+        assertEquals("README (2)", FileNameAllocator.nextFreeName("README", Set.of("README")));
+    }
+
+    @Test
+    void escapeLike() {
+        assertEquals("100!%!_done!!", FileNameAllocator.escapeLike("100%_done!"));
+        assertEquals("a!_b!%c!!", FileNameAllocator.escapeLike("a_b%c!"));
+    }
+
+    @Test
+    void allocateUsesSinglePrefixQuery() {
+        when(photoRepository.findFileNamesByPrefix(1L, "IMG")).thenReturn(List.of("IMG.jpg", "IMG (2).jpg", "IMGX.jpg"));
+
+        assertEquals("IMG (3).jpg", fileNameAllocator.allocate(1L, "IMG.jpg"));
+    }
+
+    @Test
+    void concurrentAllocationsGetDistinctNames() throws Exception {
+        // 아직 저장되지 않은 사진만 있다고 가정: 예약만으로 이름이 겹치지 않아야 한다.
+        when(photoRepository.findFileNamesByPrefix(anyLong(), anyString())).thenReturn(List.of());
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<String>> uploads = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                uploads.add(() -> fileNameAllocator.allocate(1L, "IMG.jpg"));
+            }
+            Set<String> names = new HashSet<>();
+            for (Future<String> name : pool.invokeAll(uploads)) {
+                names.add(name.get());
+            }
+            assertEquals(50, names.size());
+            assertTrue(names.contains("IMG.jpg"));
+            assertTrue(names.contains("IMG (50).jpg"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.domain.Album;
+import com.squarecross.photoalbum.dto.PageCursor;
+import com.squarecross.photoalbum.repository.AlbumRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 색인은 커밋될 때 반영되므로 @Transactional 없이 실제로 저장하고 지운다.
+@SpringBootTest
+class SearchServiceTest {
+
+    @Autowired
+    SearchService searchService;
+
+    @Autowired
+    AlbumService albumService;
+
+    @Autowired
+    AlbumRepository albumRepository;
+
+    // 다른 테스트가 만든 앨범과 겹치지 않도록 실행마다 다른 단어를 이름에 넣는다.
+    private final String word = randomWord();
+    private final List<Long> albumIds = new ArrayList<>();
+
+    @BeforeEach
+    void waitForStartupReindex() throws InterruptedException {
+        // 색인이 비어 있으면 기동 후 재색인이 돈다. 재색인은 색인을 비우고 시작하므로 끝난 뒤에 저장한다.
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("search-reindex")) {
+                thread.join();
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Long albumId : albumIds) {
+            if (albumRepository.findById(albumId).isPresent()) {
+                albumService.deleteAlbum(albumId);
+            }
+            albumRepository.purgeById(albumId);
+        }
+    }
+
+    @Test
+    void everyWordMustMatch() {
+        saveAlbum(word + " cat party");
+        saveAlbum("cathedral " + word);
+        saveAlbum(word + " dog party");
+
+        assertEquals(List.of(word + " cat party", "cathedral " + word),
+                names(searchService.searchAlbums(word + " cat", "byName", "desc", PageCursor.FIRST, 10)));
+    }
+
+    @Test
+    void symbolsOnlyFindNothing() {
+        saveAlbum(word + " (1)");
+
+        assertTrue(searchService.searchAlbums("()", "byName", "asc", PageCursor.FIRST, 10).isEmpty());
+    }
+
+    @Test
+    void pagesByName() {
+        saveAlbum(word + " b");
+        saveAlbum(word + " c");
+        saveAlbum(word + " a");
+
+        List<Album> first = searchService.searchAlbums(word, "byName", "asc", PageCursor.FIRST, 2);
+        assertEquals(List.of(word + " a", word + " b"), names(first));
+
+        Album last = first.get(1);
+        PageCursor after = PageCursor.decode(PageCursor.encode(last.getAlbumName(), last.getAlbumId()));
+        assertEquals(List.of(word + " c"), names(searchService.searchAlbums(word, "byName", "asc", after, 2)));
+    }
+
+    @Test
+    void pagesByDate() {
+        saveAlbum(word + " 1");
+        saveAlbum(word + " 2");
+        saveAlbum(word + " 3");
+
+        // 같은 시각에 만들어졌으면 ID로 순서가 정해지므로 나중에 만든 앨범이 먼저 온다.
+        List<Album> first = searchService.searchAlbums(word, "byDate", "desc", PageCursor.FIRST, 2);
+        assertEquals(List.of(word + " 3", word + " 2"), names(first));
+
+        Album last = first.get(1);
+        PageCursor after = PageCursor.decode(PageCursor.encode(last.getCreatedAt(), last.getAlbumId()));
+        assertEquals(List.of(word + " 1"), names(searchService.searchAlbums(word, "byDate", "desc", after, 2)));
+    }
+
+    @Test
+    void deletedAlbumIsPurgedFromIndex() throws IOException {
+        Long albumId = saveAlbum(word + " 삭제");
+
+        albumService.deleteAlbum(albumId);
+
+        assertTrue(searchService.searchAlbums(word, "byName", "asc", PageCursor.FIRST, 10).isEmpty());
+    }
+
+    private Long saveAlbum(String name) {
+        Album album = new Album();
+        album.setAlbumName(name);
+        Long albumId = albumRepository.save(album).getAlbumId();
+        albumIds.add(albumId);
+        return albumId;
+    }
+
+    private static List<String> names(List<Album> albums) {
+        return albums.stream().map(Album::getAlbumName).collect(Collectors.toList());
+    }
+
+    private static String randomWord() {
+        Random random = new Random();
+        StringBuilder word = new StringBuilder("zq");
+        for (int i = 0; i < 8; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.squarecross.photoalbum.service;
+
+import com.squarecross.photoalbum.repository.AlbumRepository;
+import com.squarecross.photoalbum.repository.DeletedPhotoProjection;
+import com.squarecross.photoalbum.repository.PhotoRepository;
+import com.squarecross.photoalbum.storage.BlobStore;
+import com.squarecross.photoalbum.storage.DeleteFailedException;
+import com.squarecross.photoalbum.storage.StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class StorageReclaimerTest {
+
+    private static final String HASH = "ab12cd34ef56ab12cd34ef56ab12cd34ef56ab12cd34ef56ab12cd34ef56ab12";
+
+    private final PhotoRepository photoRepository = mock(PhotoRepository.class);
+    private final StorageBackend storage = mock(StorageBackend.class);
+    private final BlobService blobService = mock(BlobService.class);
+    private final StorageReclaimer reclaimer = new StorageReclaimer();
+
+    @BeforeEach
+    void setUp() {
+        AlbumRepository albumRepository = mock(AlbumRepository.class);
+        when(albumRepository.findDeletedIds(anyInt())).thenReturn(List.of());
+        ReflectionTestUtils.setField(reclaimer, "albumRepository", albumRepository);
+        ReflectionTestUtils.setField(reclaimer, "photoRepository", photoRepository);
+        ReflectionTestUtils.setField(reclaimer, "renditionService", mock(RenditionService.class));
+        ReflectionTestUtils.setField(reclaimer, "storage", storage);
+        ReflectionTestUtils.setField(reclaimer, "blobService", blobService);
+        ReflectionTestUtils.setField(reclaimer, "batchSize", 500);
+        when(photoRepository.findDeletedPhotos(500)).thenReturn(List.of(
+                photo(1L, "/photos/original/1/a.jpg", "/photos/thumb/1/a.jpg", null),
+                photo(2L, "/photos/original/1/b.jpg", "/photos/thumb/1/b.jpg", null),
+                photo(3L, BlobStore.blobUrl(HASH), BlobStore.thumbUrl(HASH, null), HASH)));
+    }
+
+    @Test
+    void partialFailurePurgesOnlyPhotosWhoseFilesAreGone() throws IOException {
+        doThrow(new DeleteFailedException(List.of("/photos/thumb/1/b.jpg"))).when(storage).delete(anyCollection());
+
+        reclaimer.reclaim();
+
+        // 해시 저장소 사진은 지울 파일이 없으므로 함께 정리된다.
+        verify(photoRepository).purgeByIds(List.of(1L, 3L));
+        verify(blobService).release(List.of(HASH));
+    }
+
+    @Test
+    void deleteErrorKeepsAllRows() throws IOException {
+        doThrow(new IOException("저장소 응답 없음")).when(storage).delete(anyCollection());
+
+        reclaimer.reclaim();
+
+        verify(photoRepository, never()).purgeByIds(anyCollection());
+        verify(blobService, never()).release(anyCollection());
+    }
+
+    private static DeletedPhotoProjection photo(Long photoId, String originalUrl, String thumbUrl, String checksum) {
+        return new DeletedPhotoProjection() {
+            @Override
+            public Long getPhotoId() {
+                return photoId;
+            }
+
+            @Override
+            public String getOriginalUrl() {
+                return originalUrl;
+            }
+
+            @Override
+            public String getThumbUrl() {
+                return thumbUrl;
+            }
+
+            @Override
+            public String getChecksum() {
+                return checksum;
+            }
+        };
+    }
+}
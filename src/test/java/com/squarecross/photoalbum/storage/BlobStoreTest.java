@@ -0,0 +1,24 @@
+package com.squarecross.photoalbum.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobStoreTest {
+
+    private static final String HASH = "ab12cd34ef56ab12cd34ef56ab12cd34ef56ab12cd34ef56ab12cd34ef56ab12";
+
+    @Test
+    void shardedUrls() {
+        assertEquals("/photos/blobs/ab/12/" + HASH, BlobStore.blobUrl(HASH));
+        assertEquals("/photos/blob-thumbs/ab/12/" + HASH + ".jpg", BlobStore.thumbUrl(HASH, "JPG"));
+        assertEquals("/photos/blob-thumbs/ab/12/" + HASH, BlobStore.thumbUrl(HASH, null));
+    }
+
+    @Test
+    void isBlobUrl() {
+        assertTrue(BlobStore.isBlobUrl(BlobStore.blobUrl(HASH)));
+        assertFalse(BlobStore.isBlobUrl("/photos/original/1/a.jpg")); // 해시 저장소 도입 전 경로
+        assertFalse(BlobStore.isBlobUrl(null));
+    }
+}
@@ -0,0 +1,114 @@
+package com.squarecross.photoalbum.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalStorageBackendTest {
+
+    @TempDir
+    Path root;
+
+    private ParallelDeleter parallelDeleter;
+    private LocalStorageBackend storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        parallelDeleter = new ParallelDeleter(2);
+        storage = new LocalStorageBackend(root.toString(), parallelDeleter);
+        storage.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        parallelDeleter.shutdown();
+    }
+
+    @Test
+    void writeReadRange() throws Exception {
+        storage.write("/photos/blobs/ab/cd/abcd", stream("0123456789"));
+
+        assertEquals(10, storage.stat("/photos/blobs/ab/cd/abcd").getSize());
+        try (InputStream in = storage.read("/photos/blobs/ab/cd/abcd", 3, 4)) {
+            assertEquals("3456", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertThrows(NoSuchFileException.class, () -> storage.stat("/photos/blobs/none"));
+    }
+
+    @Test
+    void putIfAbsent() throws Exception {
+        Path first = storage.createTempFile();
+        Files.writeString(first, "first");
+        assertTrue(storage.putIfAbsent("/photos/blobs/a", first));
+
+        Path second = storage.createTempFile();
+        Files.writeString(second, "second");
+        assertFalse(storage.putIfAbsent("/photos/blobs/a", second)); // 이미 있는 내용은 바꾸지 않는다.
+        assertFalse(Files.exists(second));
+        try (InputStream in = storage.read("/photos/blobs/a")) {
+            assertEquals("first", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void moveAndDeletePrefix() throws Exception {
+        storage.write("/photos/original/1/a.jpg", stream("a"));
+        storage.move("/photos/original/1/a.jpg", "/photos/original/2/a.jpg");
+        assertFalse(storage.exists("/photos/original/1/a.jpg"));
+        assertTrue(storage.exists("/photos/original/2/a.jpg"));
+
+        storage.write("/photos/blob-thumbs/ab/cd/abcd.jpg", stream("t"));
+        storage.write("/photos/blob-thumbs/ab/cd/abcd.png", stream("t"));
+        storage.write("/photos/blob-thumbs/ab/cd/abce.png", stream("t"));
+        assertEquals(2, storage.deletePrefix("/photos/blob-thumbs/ab/cd/abcd"));
+        assertTrue(storage.exists("/photos/blob-thumbs/ab/cd/abce.png"));
+
+        assertEquals(1, storage.deletePrefix("/photos/original/2/"));
+        assertFalse(Files.exists(root.resolve("photos/original/2")));
+
+        storage.delete(List.of("/photos/blob-thumbs/ab/cd/abce.png", "/photos/none"));
+        assertFalse(storage.exists("/photos/blob-thumbs/ab/cd/abce.png"));
+    }
+
+    @Test
+    void deleteReportsKeysThatWereNotDeleted() throws Exception {
+        storage.write("/photos/original/3/a.jpg", stream("a"));
+        storage.write("/photos/original/4/b.jpg", stream("b"));
+
+        // 비어 있지 않은 디렉토리는 지울 수 없다.
+        DeleteFailedException e = assertThrows(DeleteFailedException.class,
+                () -> storage.delete(List.of("/photos/original/3/a.jpg", "/photos/original/4")));
+        assertEquals(Set.of("/photos/original/4"), e.getFailedKeys());
+        assertFalse(storage.exists("/photos/original/3/a.jpg"));
+    }
+
+    @Test
+    void rootWithDotSegmentsIsNormalized() throws Exception {
+        LocalStorageBackend dotted = new LocalStorageBackend(root.resolve("photos/../.") + "/", parallelDeleter);
+        dotted.write("/photos/original/1/a.jpg", stream("a"));
+
+        assertTrue(Files.exists(root.resolve("photos/original/1/a.jpg")));
+        assertEquals(root.resolve("photos/original/1/a.jpg"), dotted.localPath("/photos/original/1/a.jpg").get());
+    }
+
+    @Test
+    void rejectsKeysOutsideRoot() {
+        assertThrows(IllegalArgumentException.class, () -> storage.read("/../etc/passwd"));
+    }
+
+    private static InputStream stream(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,38 @@
+package com.squarecross.photoalbum.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void beginReadComplete() throws Exception {
+        MoveJournal journal = new MoveJournal(dir.toString());
+        journal.init();
+
+        Path file = journal.begin(List.of(
+                new FileMove(1L, "/photos/original/1/a.png", "/photos/original/2/a (2).png"),
+                new FileMove(1L, "/photos/thumb/1/a.png", "/photos/thumb/2/a (2).png"),
+                new FileMove(2L, "/photos/original/1/탭\t포함.jpg", "/photos/original/2/탭\t포함.jpg")));
+        assertEquals(List.of(file), journal.pending());
+
+        List<FileMove> moves = journal.read(file);
+        assertEquals(3, moves.size());
+        assertEquals(1L, moves.get(1).getPhotoId());
+        assertEquals("/photos/thumb/2/a (2).png", moves.get(1).getTargetUrl());
+        assertEquals("/photos/original/1/탭\t포함.jpg", moves.get(2).getSourceUrl()); // 구분자가 들어간 이름도 그대로 복원된다.
+
+        journal.complete(file);
+        assertTrue(journal.pending().isEmpty());
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,109 @@
+package com.squarecross.photoalbum.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class ParallelDeleterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void deleteTree() throws Exception {
+        Path root = dir.resolve("album");
+        Files.createDirectories(root.resolve("a/b"));
+        for (int i = 0; i < 600; i++) { // 작업 하나가 맡는 파일 수보다 많게
+            Files.createFile(root.resolve(i + ".jpg"));
+        }
+        Files.createFile(root.resolve("a/1.jpg"));
+        Files.createFile(root.resolve("a/b/2.jpg"));
+
+        ParallelDeleter deleter = new ParallelDeleter(4);
+        try {
+            assertEquals(602, deleter.deleteTree(root));
+            assertFalse(Files.exists(root));
+            assertEquals(0, deleter.deleteTree(root)); // 이미 지워졌으면 아무 일도 하지 않는다.
+        } finally {
+            deleter.shutdown();
+        }
+    }
+
+    @Test
+    void deleteFilesIgnoresMissing() throws Exception {
+        Path file = Files.createFile(dir.resolve("1.jpg"));
+
+        ParallelDeleter deleter = new ParallelDeleter(2);
+        try {
+            assertEquals(1, deleter.deleteFiles(List.of(file, dir.resolve("missing.jpg"))));
+            assertFalse(Files.exists(file));
+        } finally {
+            deleter.shutdown();
+        }
+    }
+
+    @Test
+    void deleteFilesReportsFailures() throws Exception {
+        Path file = Files.createFile(dir.resolve("1.jpg"));
+        Path notEmpty = Files.createDirectories(dir.resolve("sub"));
+        Files.createFile(notEmpty.resolve("2.jpg"));
+
+        ParallelDeleter deleter = new ParallelDeleter(2);
+        try {
+            // 비어 있지 않은 디렉토리는 파일처럼 지울 수 없으므로 실패로 보고되고, 나머지는 지워진다.
+            DeleteFailedException e = assertThrows(DeleteFailedException.class,
+                    () -> deleter.deleteFiles(List.of(file, notEmpty)));
+            assertEquals(Set.of(notEmpty.toString()), e.getFailedKeys());
+            assertFalse(Files.exists(file));
+        } finally {
+            deleter.shutdown();
+        }
+    }
+
+    @Test
+    void deleteTreeDoesNotFollowSymlinks() throws Exception {
+        Path outside = Files.createDirectories(dir.resolve("outside"));
+        Path kept = Files.createFile(outside.resolve("keep.jpg"));
+        Path root = Files.createDirectories(dir.resolve("album"));
+        Files.createFile(root.resolve("1.jpg"));
+        Files.createSymbolicLink(root.resolve("link"), outside);
+
+        ParallelDeleter deleter = new ParallelDeleter(2);
+        try {
+            assertEquals(2, deleter.deleteTree(root)); // 파일 하나와 링크 자체
+            assertFalse(Files.exists(root));
+            assertTrue(Files.exists(kept));
+        } finally {
+            deleter.shutdown();
+        }
+    }
+
+    @Test
+    void deleteTreeContinuesPastUnreadableDirectory() throws Exception {
+        Path root = dir.resolve("album");
+        Path locked = Files.createDirectories(root.resolve("locked"));
+        Files.createFile(locked.resolve("1.jpg"));
+        Path other = Files.createDirectories(root.resolve("other"));
+        Files.createFile(other.resolve("2.jpg"));
+        Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("---------"));
+
+        ParallelDeleter deleter = new ParallelDeleter(2);
+        try {
+            assumeFalse(Files.isReadable(locked)); // root로 돌리면 권한이 무시된다.
+            DeleteFailedException e = assertThrows(DeleteFailedException.class, () -> deleter.deleteTree(root));
+            assertTrue(e.getFailedKeys().contains(locked.toString()));
+            assertFalse(Files.exists(other));
+        } finally {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwx------"));
+            deleter.shutdown();
+        }
+    }
+}
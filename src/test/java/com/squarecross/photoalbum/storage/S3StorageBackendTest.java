@@ -0,0 +1,232 @@
+package com.squarecross.photoalbum.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CopyObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 메모리에 객체를 두는 가짜 S3Client로 키 변환, Range 요청, 목록 페이지 넘기기, DeleteObjects 나누기를 확인한다.
+class S3StorageBackendTest {
+
+    private FakeS3Client s3;
+    private S3StorageBackend storage;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new FakeS3Client();
+        storage = new S3StorageBackend(s3, "photos");
+    }
+
+    @Test
+    void putIfAbsentKeepsExistingObject() throws Exception {
+        Path first = tempFile("first");
+        assertTrue(storage.putIfAbsent("/photos/blobs/ab/cd/abcd", first));
+        assertFalse(Files.exists(first));
+
+        Path second = tempFile("second");
+        assertFalse(storage.putIfAbsent("/photos/blobs/ab/cd/abcd", second));
+        assertFalse(Files.exists(second));
+        assertEquals("first", s3.content("photos/blobs/ab/cd/abcd"));
+    }
+
+    @Test
+    void rangedRead() throws Exception {
+        storage.write("/photos/blobs/ab/cd/abcd", stream("0123456789"));
+
+        try (InputStream in = storage.read("/photos/blobs/ab/cd/abcd", 2, 4)) {
+            assertEquals("2345", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals("bytes=2-5", s3.lastRange);
+        try (InputStream in = storage.read("/photos/blobs/ab/cd/abcd", 2, 0)) {
+            assertEquals(0, in.readAllBytes().length);
+        }
+        assertThrows(NoSuchFileException.class, () -> storage.read("/photos/none", 0, 4));
+        assertEquals(10, storage.stat("/photos/blobs/ab/cd/abcd").getSize());
+    }
+
+    @Test
+    void moveCopiesThenDeletesSource() throws Exception {
+        storage.write("/photos/original/1/a.jpg", stream("a"));
+
+        storage.move("/photos/original/1/a.jpg", "/photos/original/2/a.jpg");
+
+        assertFalse(storage.exists("/photos/original/1/a.jpg"));
+        assertEquals("a", s3.content("photos/original/2/a.jpg"));
+        assertThrows(NoSuchFileException.class, () -> storage.move("/photos/original/1/a.jpg", "/photos/original/3/a.jpg"));
+    }
+
+    @Test
+    void deletePrefixPagesAndBatches() throws Exception {
+        for (int i = 0; i < 2500; i++) {
+            s3.objects.put(String.format("photos/original/7/%04d.jpg", i), new byte[1]);
+        }
+        s3.objects.put("photos/original/70/a.jpg", new byte[1]);
+
+        assertEquals(2500, storage.deletePrefix("/photos/original/7/"));
+
+        assertEquals(Set.of("photos/original/70/a.jpg"), s3.objects.keySet());
+        assertEquals(3, s3.listCalls); // 목록은 1000개씩 나눠 온다.
+        assertEquals(List.of(1000, 1000, 500), s3.deleteBatches);
+    }
+
+    @Test
+    void deleteReportsKeysTheServerRefused() throws Exception {
+        storage.write("/photos/original/1/a.jpg", stream("a"));
+        storage.write("/photos/original/1/b.jpg", stream("b"));
+        s3.locked.add("photos/original/1/b.jpg");
+
+        DeleteFailedException e = assertThrows(DeleteFailedException.class,
+                () -> storage.delete(List.of("/photos/original/1/a.jpg", "/photos/original/1/b.jpg")));
+
+        assertEquals(Set.of("/photos/original/1/b.jpg"), e.getFailedKeys());
+        assertFalse(storage.exists("/photos/original/1/a.jpg"));
+    }
+
+    private Path tempFile(String value) throws IOException {
+        Path file = storage.createTempFile();
+        Files.writeString(file, value);
+        return file;
+    }
+
+    private static InputStream stream(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class FakeS3Client implements S3Client {
+        private static final int PAGE_SIZE = 1000;
+
+        private final TreeMap<String, byte[]> objects = new TreeMap<>();
+        private final Set<String> locked = new HashSet<>();
+        private final List<Integer> deleteBatches = new ArrayList<>();
+        private int listCalls;
+        private String lastRange;
+
+        String content(String key) {
+            return new String(objects.get(key), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public HeadObjectResponse headObject(HeadObjectRequest request) {
+            byte[] data = get(request.key());
+            return HeadObjectResponse.builder().contentLength((long) data.length).lastModified(Instant.EPOCH).build();
+        }
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            byte[] data = get(request.key());
+            int from = 0;
+            int to = data.length - 1;
+            lastRange = request.range();
+            if (request.range() != null) {
+                String[] range = request.range().substring("bytes=".length()).split("-");
+                from = Integer.parseInt(range[0]);
+                to = Math.min(to, Integer.parseInt(range[1]));
+            }
+            return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) (to - from + 1)).build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(data, from, to - from + 1)));
+        }
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                objects.put(request.key(), in.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return PutObjectResponse.builder().build();
+        }
+
+        @Override
+        public CopyObjectResponse copyObject(CopyObjectRequest request) {
+            objects.put(request.destinationKey(), get(request.sourceKey()));
+            return CopyObjectResponse.builder().build();
+        }
+
+        @Override
+        public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+            listCalls++;
+            String after = request.continuationToken() != null ? request.continuationToken() : "";
+            List<S3Object> page = objects.tailMap(after, false).keySet().stream()
+                    .filter(key -> key.startsWith(request.prefix()))
+                    .limit(PAGE_SIZE + 1)
+                    .map(key -> S3Object.builder().key(key).build())
+                    .collect(Collectors.toList());
+            boolean truncated = page.size() > PAGE_SIZE;
+            List<S3Object> contents = truncated ? page.subList(0, PAGE_SIZE) : page;
+            return ListObjectsV2Response.builder()
+                    .contents(contents)
+                    .isTruncated(truncated)
+                    .nextContinuationToken(truncated ? contents.get(PAGE_SIZE - 1).key() : null)
+                    .build();
+        }
+
+        @Override
+        public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+            List<ObjectIdentifier> ids = request.delete().objects();
+            assertTrue(ids.size() <= 1000, "DeleteObjects는 한 번에 1000개까지만 받는다.");
+            deleteBatches.add(ids.size());
+            List<S3Error> errors = new ArrayList<>();
+            for (ObjectIdentifier id : ids) {
+                if (locked.contains(id.key())) {
+                    errors.add(S3Error.builder().key(id.key()).code("AccessDenied").build());
+                } else {
+                    objects.remove(id.key());
+                }
+            }
+            return DeleteObjectsResponse.builder().errors(errors).build();
+        }
+
+        private byte[] get(String key) {
+            byte[] data = objects.get(key);
+            if (data == null) {
+                throw NoSuchKeyException.builder().message(key).build();
+            }
+            return data;
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}